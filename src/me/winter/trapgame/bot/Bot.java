@@ -0,0 +1,310 @@
+package me.winter.trapgame.bot;
+
+import me.winter.trapgame.client.board.SnapshotAssembler;
+import me.winter.trapgame.shared.BoardModel;
+import me.winter.trapgame.shared.BoardSnapshot;
+import me.winter.trapgame.shared.FillMask;
+import me.winter.trapgame.shared.packet.*;
+
+import java.awt.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A simulated player without any interface, playing through its own UDP socket
+ *
+ * It keeps its own copy of the board from the packets received and clicks next to its cells,
+ * or anywhere while it has none. Packets are received on the thread of the LoadGenerator
+ * and actions are done on its scheduler, so every method is synchronized.
+ */
+public class Bot
+{
+	private static final String[] MESSAGES = {"gg", "hello", "nice one", "who is winning ?", "trapped again"};
+
+	private LoadGenerator generator;
+	private String name;
+	private DatagramChannel channel;
+	private Random random;
+
+	private int playerId;
+	private boolean joined, playing, kicked;
+	private BoardModel board;
+	private SnapshotAssembler snapshot;
+	private int[] owned;
+	private int ownedCount;
+	private Map<Integer, Long> clicks; //time each cell waiting for an answer was clicked
+
+	private float cursorX, cursorY;
+
+	public Bot(LoadGenerator generator, String name, InetSocketAddress server, long seed) throws IOException
+	{
+		this.generator = generator;
+		this.name = name;
+		this.random = new Random(seed);
+		this.channel = DatagramChannel.open();
+		this.channel.configureBlocking(false);
+		this.channel.connect(server);
+
+		this.playerId = -1;
+		this.board = new BoardModel(1, 1);
+		this.snapshot = new SnapshotAssembler();
+		this.owned = new int[64];
+		this.clicks = new HashMap<>();
+		this.cursorX = random.nextFloat();
+		this.cursorY = random.nextFloat();
+	}
+
+	public synchronized void join()
+	{
+		send(new PacketInJoin(name));
+	}
+
+	public synchronized void leave()
+	{
+		if(joined)
+			send(new PacketInLeave("Load test over"));
+		joined = false;
+	}
+
+	/**
+	 * Clicks a cell it can probably take, if a game is running
+	 */
+	public synchronized void click()
+	{
+		if(!playing)
+			return;
+
+		int cell = chooseCell();
+
+		if(cell < 0)
+			return;
+
+		clicks.put(cell, System.nanoTime());
+		send(new PacketInClick(new Point(cell % board.getWidth(), cell / board.getWidth())));
+		generator.countClick();
+	}
+
+	private int chooseCell()
+	{
+		for(int attempt = 0; attempt < 16; attempt++)
+		{
+			int cell;
+
+			if(ownedCount == 0)
+				cell = random.nextInt(board.getSize());
+			else
+			{
+				int from = owned[random.nextInt(ownedCount)];
+				int direction = random.nextInt(4);
+				int x = from % board.getWidth() + (direction == 0 ? 1 : direction == 1 ? -1 : 0);
+				int y = from / board.getWidth() + (direction == 2 ? 1 : direction == 3 ? -1 : 0);
+
+				if(!board.contains(x, y))
+					continue;
+
+				cell = board.getIndex(x, y);
+			}
+
+			if(board.isPlaceable(cell % board.getWidth(), cell / board.getWidth(), playerId) && !clicks.containsKey(cell))
+				return cell;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Moves the cursor a little
+	 */
+	public synchronized void moveCursor()
+	{
+		if(!joined)
+			return;
+
+		cursorX = Math.max(0, Math.min(1, cursorX + (random.nextFloat() - 0.5f) / 20));
+		cursorY = Math.max(0, Math.min(1, cursorY + (random.nextFloat() - 0.5f) / 20));
+		send(new PacketInCursorMove(cursorX, cursorY));
+	}
+
+	public synchronized void chat()
+	{
+		if(joined)
+			send(new PacketInChat(MESSAGES[random.nextInt(MESSAGES.length)]));
+	}
+
+	public synchronized void keepAlive()
+	{
+		try
+		{
+			channel.write(PacketRegistry.keepAlive());
+		}
+		catch(IOException ex)
+		{
+			generator.countError();
+		}
+	}
+
+	/**
+	 * Handles a packet received from the server
+	 * @param packet packet received
+	 * @param received System.nanoTime() when its datagram was received
+	 */
+	public synchronized void receive(Packet packet, long received)
+	{
+		if(packet instanceof PacketOutPlace)
+		{
+			PacketOutPlace place = (PacketOutPlace)packet;
+			Point location = place.getLocation();
+
+			if(!board.contains(location.x, location.y))
+				return;
+
+			int cell = board.getIndex(location.x, location.y);
+			Long clicked = clicks.remove(cell);
+
+			if(clicked != null && place.getPlayerId() == playerId)
+				generator.recordLatency(received - clicked);
+
+			if(place.getPlayerId() != BoardModel.EMPTY)
+				set(cell, place.getPlayerId());
+
+			generator.countPlace();
+			return;
+		}
+
+		if(packet instanceof PacketOutFill)
+		{
+			PacketOutFill fill = (PacketOutFill)packet;
+			FillMask mask = fill.getMask();
+
+			for(int y = mask.getY(); y < mask.getY() + mask.getHeight(); y++)
+				for(int x = mask.getX(); x < mask.getX() + mask.getWidth(); x++)
+					if(mask.contains(x, y) && board.contains(x, y))
+						set(board.getIndex(x, y), fill.getPlayerId());
+			return;
+		}
+
+		if(packet instanceof PacketOutBoardSnapshot)
+		{
+			if(!snapshot.accept((PacketOutBoardSnapshot)packet)
+					|| snapshot.getBoardWidth() != board.getWidth() || snapshot.getBoardHeight() != board.getHeight())
+				return;
+
+			try
+			{
+				int[] cells = BoardSnapshot.decode(snapshot.getData(), board.getSize());
+
+				for(int cell = 0; cell < cells.length; cell++)
+					if(cells[cell] != BoardModel.EMPTY)
+						set(cell, cells[cell]);
+			}
+			catch(IOException ex)
+			{
+				generator.countError();
+			}
+			return;
+		}
+
+		if(packet instanceof PacketOutStatus)
+		{
+			playing = ((PacketOutStatus)packet).getStatus() == PacketOutStatus.GAME_START;
+
+			if(playing)
+				reset();
+			return;
+		}
+
+		if(packet instanceof PacketOutSpectator)
+		{
+			playing = false;
+			return;
+		}
+
+		if(packet instanceof PacketOutWelcome)
+		{
+			PacketOutWelcome welcome = (PacketOutWelcome)packet;
+
+			playerId = welcome.getPlayerId();
+			joined = true;
+			board.resize(welcome.getBoardWidth(), welcome.getBoardHeight());
+			reset();
+			generator.countJoin();
+			return;
+		}
+
+		if(packet instanceof PacketOutBoardSize)
+		{
+			board.resize(((PacketOutBoardSize)packet).getBoardWidth(), ((PacketOutBoardSize)packet).getBoardHeight());
+			reset();
+			return;
+		}
+
+		if(packet instanceof PacketOutKick)
+		{
+			joined = false;
+			playing = false;
+			kicked = true;
+			generator.countKick();
+		}
+	}
+
+	private void set(int cell, int owner)
+	{
+		int previous = board.get(cell);
+		board.set(cell, owner);
+
+		//a cell already owned is sent again by later snapshots and places
+		if(owner != playerId || previous == playerId)
+			return;
+
+		if(ownedCount == owned.length)
+			owned = Arrays.copyOf(owned, owned.length * 2);
+
+		owned[ownedCount++] = cell;
+	}
+
+	private void reset()
+	{
+		board.clear();
+		snapshot.reset();
+		clicks.clear();
+		ownedCount = 0;
+	}
+
+	private void send(Packet packet)
+	{
+		try
+		{
+			channel.write(PacketRegistry.encode(packet));
+		}
+		catch(IOException ex)
+		{
+			generator.countError();
+		}
+	}
+
+	public DatagramChannel getChannel()
+	{
+		return channel;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public synchronized boolean isJoined()
+	{
+		return joined;
+	}
+
+	public synchronized boolean isKicked()
+	{
+		return kicked;
+	}
+}
@@ -0,0 +1,56 @@
+package me.winter.trapgame.bot;
+
+import java.util.Arrays;
+
+/**
+ * Keeps latency samples until they are reported, then gives their percentiles
+ */
+public class LatencyRecorder
+{
+	private long[] samples;
+	private int count;
+
+	public LatencyRecorder()
+	{
+		this.samples = new long[1024];
+		this.count = 0;
+	}
+
+	/**
+	 * @param nanos latency in nanoseconds
+	 */
+	public synchronized void record(long nanos)
+	{
+		if(count == samples.length)
+			samples = Arrays.copyOf(samples, samples.length * 2);
+
+		samples[count++] = nanos;
+	}
+
+	/**
+	 * Takes every sample recorded so far and starts again empty
+	 * @return the samples, sorted
+	 */
+	public synchronized long[] drain()
+	{
+		long[] drained = Arrays.copyOf(samples, count);
+		count = 0;
+
+		Arrays.sort(drained);
+		return drained;
+	}
+
+	/**
+	 * @param sorted sorted samples
+	 * @param percentile percentile wanted, between 0 and 1
+	 * @return the sample at that percentile, 0 without samples
+	 */
+	public static long getPercentile(long[] sorted, double percentile)
+	{
+		if(sorted.length == 0)
+			return 0;
+
+		int index = (int)Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+}
@@ -0,0 +1,299 @@
+package me.winter.trapgame.bot;
+
+import me.winter.trapgame.shared.Scheduler;
+import me.winter.trapgame.shared.packet.Packet;
+import me.winter.trapgame.shared.packet.PacketBatch;
+import me.winter.trapgame.shared.packet.PacketRegistry;
+import me.winter.trapgame.util.StringUtil;
+
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a running server with many headless bots and reports its throughput and latency
+ *
+ * Every bot has its own socket. A single thread receives the datagrams of all of them,
+ * another one runs their actions on a scheduler. The latency reported is the time between
+ * a click and the reception of the place broadcast for it.
+ */
+public class LoadGenerator
+{
+	private static final int REPORT_INTERVAL = 5000;
+	private static final int KEEP_ALIVE_INTERVAL = 5000;
+	private static final int JOIN_INTERVAL = 10;
+
+	private InetSocketAddress server;
+	private int botCount, clickRate, cursorRate, chatInterval;
+
+	private List<Bot> bots;
+	private Scheduler scheduler;
+	private Selector selector;
+	private volatile boolean stop;
+
+	private LatencyRecorder latency, overall;
+	private LongAdder clicks, places, datagrams, bytes, joins, kicks, errors;
+	private long start, lastReport;
+	private long totalClicks, totalPlaces, totalDatagrams, totalBytes;
+
+	/**
+	 * Starts a load test
+	 *
+	 * @param args host port bots seconds clicksPerSecond cursorsPerSecond chatInterval, all optional
+	 */
+	public static void main(String[] args)
+	{
+		String host = args.length > 0 ? args[0] : "localhost";
+		int port = args.length > 1 && StringUtil.isInt(args[1]) ? Integer.parseInt(args[1]) : 1254;
+		int bots = args.length > 2 && StringUtil.isInt(args[2]) ? Integer.parseInt(args[2]) : 100;
+		int seconds = args.length > 3 && StringUtil.isInt(args[3]) ? Integer.parseInt(args[3]) : 60;
+		int clickRate = args.length > 4 && StringUtil.isInt(args[4]) ? Integer.parseInt(args[4]) : 2;
+		int cursorRate = args.length > 5 && StringUtil.isInt(args[5]) ? Integer.parseInt(args[5]) : 10;
+		int chatInterval = args.length > 6 && StringUtil.isInt(args[6]) ? Integer.parseInt(args[6]) : 30;
+
+		try
+		{
+			LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port), bots, clickRate, cursorRate, chatInterval);
+			generator.run(seconds * 1000L);
+		}
+		catch(Exception ex)
+		{
+			ex.printStackTrace(System.err);
+			System.exit(1);
+		}
+
+		System.exit(0);
+	}
+
+	/**
+	 * @param server address of the server
+	 * @param botCount amount of bots
+	 * @param clickRate clicks per second of each bot, 0 to never click
+	 * @param cursorRate cursor moves per second of each bot, 0 to never move
+	 * @param chatInterval seconds between two messages of each bot, 0 to never chat
+	 */
+	public LoadGenerator(InetSocketAddress server, int botCount, int clickRate, int cursorRate, int chatInterval)
+	{
+		this.server = server;
+		this.botCount = botCount;
+		this.clickRate = clickRate;
+		this.cursorRate = cursorRate;
+		this.chatInterval = chatInterval;
+
+		this.bots = new ArrayList<>();
+		this.scheduler = new Scheduler();
+		this.latency = new LatencyRecorder();
+		this.overall = new LatencyRecorder();
+		this.clicks = new LongAdder();
+		this.places = new LongAdder();
+		this.datagrams = new LongAdder();
+		this.bytes = new LongAdder();
+		this.joins = new LongAdder();
+		this.kicks = new LongAdder();
+		this.errors = new LongAdder();
+	}
+
+	/**
+	 * Runs the bots for a while, then makes them leave and prints the final report
+	 * @param duration length of the test in milliseconds
+	 * @throws IOException if the sockets couldn't be opened
+	 */
+	public void run(long duration) throws IOException
+	{
+		selector = Selector.open();
+
+		for(int i = 0; i < botCount; i++)
+		{
+			Bot bot = new Bot(this, "Bot" + i, server, i);
+
+			bot.getChannel().register(selector, SelectionKey.OP_READ, bot);
+			bots.add(bot);
+		}
+
+		Thread receiver = new Thread(this::receive, "TrapGame bot receiver");
+		receiver.start();
+
+		for(int i = 0; i < bots.size(); i++)
+		{
+			Bot bot = bots.get(i);
+			int offset = i * JOIN_INTERVAL;
+
+			scheduler.addTask(bot::join, offset, false);
+			scheduler.addTask(bot::keepAlive, KEEP_ALIVE_INTERVAL, true);
+
+			if(clickRate > 0)
+				scheduler.addTask(bot::click, Math.max(1, 1000 / clickRate), true);
+
+			if(cursorRate > 0)
+				scheduler.addTask(bot::moveCursor, Math.max(1, 1000 / cursorRate), true);
+
+			if(chatInterval > 0)
+				scheduler.addTask(bot::chat, chatInterval * 1000, true);
+		}
+
+		start = lastReport = System.nanoTime();
+		scheduler.addTask(this::report, REPORT_INTERVAL, true);
+
+		long end = System.currentTimeMillis() + duration;
+		scheduler.loop(() -> System.currentTimeMillis() < end);
+
+		report();
+
+		bots.forEach(Bot::leave);
+		stop = true;
+		selector.wakeup();
+
+		double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+		System.out.println("Overall: " + format(seconds, totalClicks, totalPlaces, totalDatagrams, totalBytes, overall.drain()));
+		System.out.println("Joined " + joins.sum() + " times, kicked " + kicks.sum() + " times, " + errors.sum() + " errors");
+	}
+
+	private void receive()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(PacketRegistry.MAX_PACKET_SIZE);
+
+		while(!stop) try
+		{
+			selector.select(100);
+
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+			while(keys.hasNext())
+			{
+				SelectionKey key = keys.next();
+				Bot bot = (Bot)key.attachment();
+				keys.remove();
+
+				buffer.clear();
+
+				while(bot.getChannel().receive(buffer) != null)
+				{
+					long received = System.nanoTime();
+
+					buffer.flip();
+					datagrams.increment();
+					bytes.add(buffer.remaining());
+
+					receive(bot, buffer, received);
+
+					buffer.clear();
+				}
+			}
+		}
+		catch(IOException ex)
+		{
+			countError();
+		}
+	}
+
+	/**
+	 * Handles a datagram received by a bot, a bad one is counted as an error without stopping the receiver
+	 */
+	private void receive(Bot bot, ByteBuffer data, long received)
+	{
+		try
+		{
+			if(!PacketRegistry.isKeepAlive(data))
+				PacketBatch.forEachFrame(data, frame -> accept(bot, frame, received));
+		}
+		catch(BufferUnderflowException | UTFDataFormatException ex)
+		{
+			countError();
+		}
+		catch(Exception ex)
+		{
+			countError();
+			ex.printStackTrace(System.err);
+		}
+	}
+
+	private void accept(Bot bot, ByteBuffer frame, long received) throws IOException
+	{
+		Packet packet = PacketRegistry.read(frame);
+
+		if(packet != null)
+			bot.receive(packet, received);
+	}
+
+	/**
+	 * Prints the throughput and latency since the last report
+	 */
+	private void report()
+	{
+		long now = System.nanoTime();
+		int joined = 0;
+
+		for(Bot bot : bots)
+			if(bot.isJoined())
+				joined++;
+
+		long clicks = this.clicks.sumThenReset();
+		long places = this.places.sumThenReset();
+		long datagrams = this.datagrams.sumThenReset();
+		long bytes = this.bytes.sumThenReset();
+
+		totalClicks += clicks;
+		totalPlaces += places;
+		totalDatagrams += datagrams;
+		totalBytes += bytes;
+
+		System.out.println(joined + "/" + bots.size() + " bots | " + format((now - lastReport) / 1_000_000_000d, clicks, places, datagrams, bytes, latency.drain()));
+		lastReport = now;
+	}
+
+	private static String format(double seconds, long clicks, long places, long datagrams, long bytes, long[] latencies)
+	{
+		return String.format("%.0f clicks/s | %.0f places/s | %.0f datagrams/s | %.1f KB/s | latency p50 %.2f ms, p99 %.2f ms, p999 %.2f ms (%d samples)",
+				clicks / seconds,
+				places / seconds,
+				datagrams / seconds,
+				bytes / seconds / 1024,
+				LatencyRecorder.getPercentile(latencies, 0.5) / 1_000_000d,
+				LatencyRecorder.getPercentile(latencies, 0.99) / 1_000_000d,
+				LatencyRecorder.getPercentile(latencies, 0.999) / 1_000_000d,
+				latencies.length);
+	}
+
+	/**
+	 * @param nanos time between a click and the reception of its place broadcast
+	 */
+	void recordLatency(long nanos)
+	{
+		latency.record(nanos);
+		overall.record(nanos);
+	}
+
+	void countClick()
+	{
+		clicks.increment();
+	}
+
+	void countPlace()
+	{
+		places.increment();
+	}
+
+	void countJoin()
+	{
+		joins.increment();
+	}
+
+	void countKick()
+	{
+		kicks.increment();
+	}
+
+	void countError()
+	{
+		errors.increment();
+	}
+}
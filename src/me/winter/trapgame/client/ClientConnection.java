@@ -6,12 +6,14 @@ import me.winter.trapgame.shared.packet.*;
 import me.winter.trapgame.util.StringUtil;
 
 import javax.swing.*;
-import java.awt.*;
 import java.io.*;
 import java.net.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
@@ -31,7 +33,7 @@ public class ClientConnection
 	private int port;
 	private byte[] inputBuffer;
 
-	private List<Packet> toSend;
+	private Queue<Packet> toSend;
 	private boolean welcomed;
 	private Task keepAliveTask;
 
@@ -39,10 +41,10 @@ public class ClientConnection
 	{
 		this.client = client;
 		udpSocket = null;
-		toSend = new ArrayList<>();
+		toSend = new ConcurrentLinkedQueue<>();
 		welcomed = true;
 		port = 1254;
-		inputBuffer = new byte[8 * 1024];
+		inputBuffer = new byte[PacketRegistry.MAX_PACKET_SIZE];
 
 		keepAliveTask = new Task(4000, true, this::keepAlive);
 	}
@@ -129,15 +131,7 @@ public class ClientConnection
 		DatagramSocket pingSocket = new DatagramSocket();
 		pingSocket.setSoTimeout(timeout);
 
-		Packet packet = new PacketInPing();
-
-		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-		new DataOutputStream(byteStream).writeUTF(packet.getClass().getSimpleName());
-		packet.writeTo(byteStream); //ping parameters (may be empty)
-
-		DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
-
-		pingSocket.send(data);
+		pingSocket.send(toDatagram(new PacketInPing(), address, port)); //ping parameters (may be empty)
 
 
 		try
@@ -146,16 +140,12 @@ public class ClientConnection
 
 			pingSocket.receive(bufPacket);
 
-			ByteArrayInputStream receiveStream = new ByteArrayInputStream(inputBuffer);
+			Packet packet = PacketRegistry.read(ByteBuffer.wrap(inputBuffer, 0, bufPacket.getLength()));
 
-			String packetName = new DataInputStream(receiveStream).readUTF();
-
-			if(!packetName.equals("PacketOutPong"))
+			if(!(packet instanceof PacketOutPong))
 				return null;
 
-			PacketOutPong pong = new PacketOutPong();
-			pong.readFrom(receiveStream);
-			return pong;
+			return (PacketOutPong)packet;
 		}
 		finally
 		{
@@ -182,15 +172,7 @@ public class ClientConnection
 		DatagramSocket pingSocket = new DatagramSocket();
 		pingSocket.setSoTimeout(timeout);
 
-		Packet packet = new PacketInPing();
-
-		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-		new DataOutputStream(byteStream).writeUTF(packet.getClass().getSimpleName());
-		packet.writeTo(byteStream); //ping parameters (may be empty)
-
-		DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
-
-		pingSocket.send(data);
+		pingSocket.send(toDatagram(new PacketInPing(), address, port)); //ping parameters (may be empty)
 
 		long start = System.nanoTime();
 
@@ -202,16 +184,12 @@ public class ClientConnection
 
 				pingSocket.receive(bufPacket);
 
-				ByteArrayInputStream receiveStream = new ByteArrayInputStream(inputBuffer);
-
-				String packetName = new DataInputStream(receiveStream).readUTF();
+				Packet packet = PacketRegistry.read(ByteBuffer.wrap(inputBuffer, 0, bufPacket.getLength()));
 
-				if(!packetName.equals("PacketOutPong"))
+				if(!(packet instanceof PacketOutPong))
 					continue;
 
-				PacketOutPong pong = new PacketOutPong();
-				pong.readFrom(receiveStream);
-				pongs.add(new BroadcastResponse(bufPacket.getAddress(), bufPacket.getPort(), pong, (int)((System.nanoTime() - start) / 1_000_000)));
+				pongs.add(new BroadcastResponse(bufPacket.getAddress(), bufPacket.getPort(), (PacketOutPong)packet, (int)((System.nanoTime() - start) / 1_000_000)));
 			}
 		}
 		catch(SocketTimeoutException ex)
@@ -226,8 +204,8 @@ public class ClientConnection
 
 	public synchronized void sendPacketLater(Packet packet)
 	{
-		toSend.add(packet);
-		notify();
+		toSend.offer(packet);
+		notifyAll();
 	}
 
 	public void keepAlive()
@@ -237,12 +215,9 @@ public class ClientConnection
 
 		try
 		{
-			ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-			new DataOutputStream(byteStream).writeUTF("KeepAlive");
-
-			DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
+			ByteBuffer data = PacketRegistry.keepAlive();
 
-			udpSocket.send(data);
+			udpSocket.send(new DatagramPacket(data.array(), data.remaining(), address, port));
 		}
 		catch(SocketException ex)
 		{
@@ -261,14 +236,7 @@ public class ClientConnection
 
 		try
 		{
-			ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-			new DataOutputStream(byteStream).writeUTF(packet.getClass().getSimpleName());
-			packet.writeTo(byteStream);
-
-			DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
-
-
-			udpSocket.send(data);
+			udpSocket.send(toDatagram(packet, address, port));
 		}
 		catch(Exception ex)
 		{
@@ -278,6 +246,20 @@ public class ClientConnection
 	}
 
 
+	/**
+	 * Encodes a packet in a datagram
+	 * @param packet packet to send
+	 * @param address destination address
+	 * @param port destination port
+	 * @return a datagram ready to be sent
+	 * @throws IOException if the packet couldn't be encoded
+	 */
+	private static DatagramPacket toDatagram(Packet packet, InetAddress address, int port) throws IOException
+	{
+		ByteBuffer data = PacketRegistry.encode(packet);
+		return new DatagramPacket(data.array(), data.arrayOffset(), data.remaining(), address, port);
+	}
+
 	public void receivePacket(Packet packet)
 	{
 		if(!isOpen())
@@ -290,7 +272,7 @@ public class ClientConnection
 
 			synchronized(this)
 			{
-				notify();
+				notifyAll();
 			}
 
 			welcomed = true;
@@ -332,21 +314,24 @@ public class ClientConnection
 
 		if(packet instanceof PacketOutFill)
 		{
-			client.getBoard().getPlayBoard().fill(((PacketOutFill)packet).getPlayerId(), ((PacketOutFill)packet).getLocation());
+			client.getBoard().getPlayBoard().fill(((PacketOutFill)packet).getPlayerId(), ((PacketOutFill)packet).getMask());
 			return;
 		}
 
-		if(packet instanceof PacketOutCursorMove)
+		if(packet instanceof PacketOutCursorSnapshot)
 		{
-			PacketOutCursorMove movePacket = (PacketOutCursorMove)packet;
+			PacketOutCursorSnapshot snapshot = (PacketOutCursorSnapshot)packet;
 
-			PlayerInfo player = client.getBoard().getPlayer(movePacket.getPlayerId());
+			for(int i = 0; i < snapshot.getSize(); i++)
+			{
+				PlayerInfo player = client.getBoard().getPlayer(snapshot.getPlayerId(i));
 
-			if(player == null)
-				return;
+				if(player == null || player == client.getBoard().getClient())
+					continue;
+
+				player.setCursor(snapshot.getCursorX(i), snapshot.getCursorY(i));
+			}
 
-			player.setCursorX(movePacket.getCursorX());
-			player.setCursorY(movePacket.getCursorY());
 			client.getBoard().getPlayBoard().revalidate();
 			client.getBoard().getPlayBoard().repaint();
 			return;
@@ -355,8 +340,24 @@ public class ClientConnection
 		if(packet instanceof PacketOutSpectator)
 		{
 			client.getBoard().getPlayBoard().setSpectator(true);
-			for(Map.Entry<Point, Integer> entry : ((PacketOutSpectator)packet).getBoardContent().entrySet())
-				client.getBoard().getPlayBoard().place(entry.getValue(), entry.getKey());
+			return;
+		}
+
+		if(packet instanceof PacketOutBoardSnapshot)
+		{
+			client.getBoard().getPlayBoard().receiveSnapshot((PacketOutBoardSnapshot)packet);
+			return;
+		}
+
+		if(packet instanceof PacketOutRegion)
+		{
+			client.getBoard().getPlayBoard().receiveRegion((PacketOutRegion)packet);
+			return;
+		}
+
+		if(packet instanceof PacketOutOverview)
+		{
+			client.getBoard().getPlayBoard().receiveOverview((PacketOutOverview)packet);
 			return;
 		}
 
@@ -400,20 +401,12 @@ public class ClientConnection
 
 			udpSocket.receive(bufPacket);
 
-			ByteArrayInputStream byteStream = new ByteArrayInputStream(inputBuffer);
-
-			String packetName = new DataInputStream(byteStream).readUTF();
+			ByteBuffer data = ByteBuffer.wrap(inputBuffer, 0, bufPacket.getLength());
 
-			if(packetName.equals("KeepAlive"))
+			if(PacketRegistry.isKeepAlive(data))
 				continue;
 
-			Packet packet = (Packet)Class.forName("me.winter.trapgame.shared.packet." + packetName).newInstance();
-			packet.readFrom(byteStream);
-
-			//if(client.getUserProperties().isDebugMode()) ab00se
-			//	System.out.println("Received " + packet.getClass().getSimpleName() + " from " + bufPacket.getAddress().toString() + " port: " + bufPacket.getPort());
-
-			client.getScheduler().addTask(() -> receivePacket(packet), 0);
+			PacketBatch.forEachFrame(data, this::acceptFrame);
 		}
 		catch(SocketTimeoutException ex)
 		{
@@ -424,6 +417,10 @@ public class ClientConnection
 		{
 			close();
 		}
+		catch(BufferUnderflowException | UTFDataFormatException ex)
+		{
+			client.getLogger().log(Level.INFO, "Received malformed datagram");
+		}
 		catch(Exception ex)
 		{
 			client.getLogger().log(Level.WARNING, "An unexpected exception occurred while accepting input", ex);
@@ -431,23 +428,70 @@ public class ClientConnection
 		}
 	}
 
+	/**
+	 * Reads a single packet of a received datagram and hands it to the client thread
+	 * @param frame buffer limited to the packet
+	 * @throws IOException if the packet couldn't be read
+	 */
+	private void acceptFrame(ByteBuffer frame) throws IOException
+	{
+		int opcode = frame.get(frame.position()) & 0xFF;
+		Packet packet = PacketRegistry.read(frame);
+
+		if(packet == null)
+		{
+			client.getLogger().log(Level.INFO, "Received packet with unknown opcode " + opcode);
+			return;
+		}
+
+		//if(client.getUserProperties().isDebugMode()) ab00se
+		//	System.out.println("Received " + packet.getClass().getSimpleName());
+
+		client.getScheduler().execute(() -> receivePacket(packet));
+	}
+
+	/**
+	 * Sends the packets queued by sendPacketLater, packing the ones queued together in a single datagram
+	 */
 	private void sendOutput()
 	{
+		PacketBatch batch = new PacketBatch(PacketBatch.DEFAULT_MTU);
+
 		while(isOpen())
 		{
-			while(toSend.size() != 0)
+			Packet packet;
+
+			while((packet = toSend.poll()) != null)
 			{
-				Packet packet = toSend.get(0);
-				if(packet != null)
-					sendPacket(packet);
-				toSend.remove(0);
+				ByteBuffer frame;
+
+				try
+				{
+					frame = PacketRegistry.encode(packet);
+				}
+				catch(IOException ex)
+				{
+					client.getLogger().log(Level.WARNING, "An exception occurred when trying to encode packet", ex);
+					continue;
+				}
+
+				if(batch.add(frame))
+					continue;
+
+				sendBatch(batch);
+
+				if(!batch.add(frame))
+					sendDatagram(frame);
 			}
 
+			sendBatch(batch);
+
 			synchronized(this)
 			{
 				try
 				{
-					wait();
+					if(toSend.isEmpty() && isOpen())
+						wait();
 				}
 				catch(InterruptedException ex)
 				{
@@ -457,6 +501,28 @@ public class ClientConnection
 		}
 	}
 
+	private void sendBatch(PacketBatch batch)
+	{
+		if(batch.isEmpty())
+			return;
+
+		sendDatagram(batch.toDatagram());
+		batch.clear();
+	}
+
+	private void sendDatagram(ByteBuffer data)
+	{
+		try
+		{
+			udpSocket.send(new DatagramPacket(data.array(), data.arrayOffset() + data.position(), data.remaining(), address, port));
+		}
+		catch(Exception ex)
+		{
+			if(client.getUserProperties().isDebugMode())
+				client.getLogger().log(Level.WARNING, "An exception occurred when trying to send packet", ex);
+		}
+	}
+
 	public boolean isOpen()
 	{
 		return udpSocket != null && !udpSocket.isClosed();
@@ -480,7 +546,7 @@ public class ClientConnection
 
 		synchronized(this)
 		{
-			notify();
+			notifyAll();
 		}
 	}
 
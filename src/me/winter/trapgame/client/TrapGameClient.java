@@ -6,6 +6,7 @@ import me.winter.trapgame.shared.GameTranslation;
 import me.winter.trapgame.shared.Scheduler;
 import me.winter.trapgame.shared.Task;
 import me.winter.trapgame.shared.TrapGameLogFormatter;
+import me.winter.trapgame.shared.execution.ExecutionStrategy;
 import me.winter.trapgame.util.FileUtil;
 import me.winter.trapgame.util.StringUtil;
 
@@ -84,6 +85,7 @@ public class TrapGameClient extends JFrame
 	}
 
 	private Scheduler scheduler;
+	private ExecutionStrategy executor;
 	private ClientConnection connection;
 	private UserProperties userProperties;
 	private GameTranslation lang;
@@ -105,6 +107,7 @@ public class TrapGameClient extends JFrame
 
 		this.logger = logger;
 		scheduler = new Scheduler(logger);
+		executor = ExecutionStrategy.create("virtual", 4, 256, "TrapGame client worker");
 		connection = new ClientConnection(this);
 		userProperties = new UserProperties(logger, new File(FileUtil.getAppData() + "/.TrapGame/user.properties"));
 		resourceManager = new SimpleResourceManager(logger);
@@ -286,6 +289,15 @@ public class TrapGameClient extends JFrame
 		return scheduler;
 	}
 
+	/**
+	 * Runs the network jobs of the menus, like pinging servers
+	 * @return execution strategy of the client
+	 */
+	public ExecutionStrategy getExecutor()
+	{
+		return executor;
+	}
+
 	public ClientConnection getConnection()
 	{
 		return connection;
@@ -1,489 +1,849 @@
-package me.winter.trapgame.client.board;
-
-import me.winter.trapgame.shared.BoardFiller;
-import me.winter.trapgame.shared.PlayerInfo;
-import me.winter.trapgame.shared.packet.PacketInClick;
-import me.winter.trapgame.shared.packet.PacketInCursorMove;
-import me.winter.trapgame.util.ColorTransformer;
-
-import javax.swing.*;
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.GridLayout;
-import java.awt.Point;
-import java.awt.RenderingHints;
-import java.awt.Toolkit;
-import java.awt.event.*;
-import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-
-/**
- * Represents the panel where players clicks and contains the buttons
- *
- * Created by Alexander Winter on 2016-03-28.
- */
-
-
-public class PlayBoard extends JPanel implements MouseMotionListener, MouseListener, KeyListener
-{
-	private TrapGameBoard container;
-
-	private Map<Point, PlayerInfo> scores;
-	private int boardWidth, boardHeight;
-	private boolean boardLocked, spectator, mouseIn;
-
-	private long lastFreeze; //last time the player missed
-
-	private Map<Color, BufferedImage> preloaded;
-
-	private boolean specialSounds = false;
-	private Random rand = new Random();
-
-	private List<FailAnimation> fails;
-
-	public PlayBoard(TrapGameBoard container, int width, int height)
-	{
-		this.container = container;
-		this.scores = new HashMap<>();
-		preloaded = new HashMap<>();
-		fails = new ArrayList<>();
-		mouseIn = false;
-		boardLocked = true;
-		lastFreeze = 0;
-
-		addMouseMotionListener(this);
-		addMouseListener(this);
-		addKeyListener(this);
-
-		setFocusable(true);
-
-		setBackground(new Color(0, 0, 0, 0));
-
-		boolean windows;
-
-		try
-		{
-			windows = System.getProperty("os.name").toLowerCase().contains("win");
-		}
-		catch(Exception ex)
-		{
-			windows = false;
-		}
-
-		BufferedImage image = getCursorImage(container.getClient().getColor(), !windows);
-		setCursor(Toolkit.getDefaultToolkit().createCustomCursor(image, new Point(image.getWidth() / 2, image.getHeight() / 2), "TrapGame"));
-
-		prepare(width, height);
-	}
-
-	public void prepare(int boardWidth, int boardHeight)
-	{
-		setBoardWidth(boardWidth);
-		setBoardHeight(boardHeight);
-		removeAll();
-		scores.clear();
-		setLayout(new GridLayout(boardWidth, boardHeight, 0, 0));
-	}
-
-	@Override
-	public void paintComponent(Graphics graphics)
-	{
-		Graphics2D g2draw = (Graphics2D) graphics;
-
-		g2draw.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		g2draw.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-		g2draw.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
-
-		g2draw.drawImage(container.getContainer().getResourceManager().getImage("background"), -getX(), 0, container.getWidth(), container.getHeight(), null);
-		//g2draw.drawImage(container.getContainer().getResourceManager().getImage("board"), 0, 0, getWidth(), getHeight(), null);
-
-		float buttonWidth = getWidth() / (float)getBoardWidth();
-		float buttonHeight = getHeight() / (float)getBoardHeight();
-
-		for(int x = 0; x < getBoardWidth(); x++)
-		{
-			for(int y = 0; y < getBoardHeight(); y++)
-			{
-				PlayerInfo player = scores.get(new Point(x, y));
-
-				int xCeil = (int)((x + 1) * buttonWidth) > (int)(x * buttonWidth) + (int)buttonWidth ? 1 : 0;
-				int yCeil = (int)((y + 1) * buttonHeight) > (int)(y * buttonHeight) + (int)buttonHeight ? 1 : 0;
-
-				int width = (int)buttonWidth + xCeil;
-				int height = (int)buttonHeight + yCeil;
-
-				if(player != null)
-				{
-					g2draw.setColor(new ColorTransformer(player.getColor(), 200));
-					g2draw.fillRoundRect(
-							(int)(x * buttonWidth) + (int)(3 * buttonWidth / 256),
-							(int)(y * buttonHeight) + (int)(3 * buttonHeight / 256),
-							width - (int)(3 * buttonWidth / 128),
-							height - (int)(3 * buttonHeight / 128),
-							width / 6, height / 6);
-				}
-				else if(!isSpectator() && !isBoardLocked() && lastFreeze - System.nanoTime() < 0 && mouseIn && isHover(new Point(x, y)))
-				{
-					boolean aroundOwn = false;
-					boolean atLeastOne = false;
-
-					for(Point point : scores.keySet())
-					{
-						if(scores.get(point) == container.getClient())
-						{
-							atLeastOne = true;
-
-							if(point.getX() + 1 == x && point.getY() == y
-							|| point.getX() - 1 == x && point.getY() == y
-							|| point.getX() == x && point.getY() + 1 == y
-							|| point.getX() == x && point.getY() - 1 == y)
-							{
-								aroundOwn = true;
-								break;
-							}
-						}
-					}
-
-					if(!atLeastOne || aroundOwn)
-					{
-						g2draw.setColor(new ColorTransformer(container.getClient().getColor(), 100));
-						g2draw.fillRoundRect(
-								(int)(x * buttonWidth) + (int)(3 * buttonWidth / 256),
-								(int)(y * buttonHeight) + (int)(3 * buttonHeight / 256),
-								width - (int)(3 * buttonWidth / 128),
-								height - (int)(3 * buttonHeight / 128),
-								width / 6, height / 6);
-					}
-				}
-
-				g2draw.drawImage(container.getContainer().getResourceManager().getImage("game-button"), (int)(x * buttonWidth), (int)(y * buttonHeight), (int)buttonWidth + xCeil, (int)buttonHeight + yCeil, null);
-
-			}
-		}
-
-		for(PlayerInfo player : container.getPlayers())
-		{
-			if(player == container.getClient())
-				continue;
-			g2draw.drawImage(getCursorImage(player.getColor(), true),
-					(int)(player.getCursorX() * getWidth()) - 16,
-					(int)(player.getCursorY() * getHeight()) - 16, null);
-		}
-
-		for(int i = 0; i < fails.size(); i++)
-		{
-			if(fails.get(i).finished())
-			{
-				fails.remove(i);
-				continue;
-			}
-
-			int x = fails.get(i).getLocation().x;
-			int y = fails.get(i).getLocation().y;
-
-			g2draw.drawImage(container.getContainer().getResourceManager().getImage("fail-icon"), (int)(x - buttonWidth / 2), (int)(y - buttonHeight / 2), (int)buttonWidth, (int)buttonHeight, null);
-		}
-	}
-
-	public BufferedImage getCursorImage(Color color, boolean transparency)
-	{
-		BufferedImage baseCursor = (BufferedImage)container.getContainer().getResourceManager().getImage("cursor");
-
-		if(!transparency)
-		{
-			BufferedImage image = new BufferedImage(baseCursor.getWidth(), baseCursor.getHeight(), BufferedImage.TYPE_INT_ARGB);
-
-			Graphics2D graphics2D = image.createGraphics();
-
-			graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			graphics2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-			graphics2D.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
-
-			graphics2D.setColor(Color.white);
-			graphics2D.fillRect(0, 0, image.getWidth(), image.getHeight());
-			graphics2D.drawImage(getCursorImage(color, true), 0, 0, null);
-
-			for(int x = 0; x < baseCursor.getWidth(); x++)
-			{
-				for(int y = 0; y < baseCursor.getHeight(); y++)
-				{
-					Color currentColor = new Color(image.getRGB(x, y));
-
-					if(currentColor.equals(Color.white))
-						image.setRGB(x, y, new Color(0, 0, 0, 0).getRGB());
-				}
-			}
-			graphics2D.dispose();
-
-			return image;
-		}
-
-		if(preloaded.containsKey(color))
-			return preloaded.get(color);
-
-		BufferedImage image = new BufferedImage(baseCursor.getWidth(), baseCursor.getHeight(), BufferedImage.TYPE_INT_ARGB);
-
-		Graphics2D graphics2D = image.createGraphics();
-
-		for(int x = 0; x < baseCursor.getWidth(); x++)
-		{
-			for(int y = 0; y < baseCursor.getHeight(); y++)
-			{
-				Color currentColor = new Color(baseCursor.getRGB(x, y));
-				graphics2D.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), currentColor.getRed()));
-				graphics2D.drawRect(x, y, 1, 1);
-			}
-		}
-
-
-		graphics2D.dispose();
-
-
-		preloaded.put(color, image);
-		return image;
-	}
-
-	public boolean isHover(Point point)
-	{
-		return new Point((int)(container.getClient().getCursorX() * getBoardWidth()), (int)(container.getClient().getCursorY() * getBoardHeight())).equals(point);
-	}
-
-	public int getScore(PlayerInfo info)
-	{
-		int score = 0;
-
-		for(Point point : scores.keySet())
-			if(scores.get(point) == info)
-				score++;
-
-		return score;
-	}
-
-	public void place(int playerId, Point point)
-	{
-		PlayerInfo player = container.getPlayer(playerId);
-
-		if(player == null && playerId > 0)
-			return;
-
-		if(point.getX() < 0 || point.getY() < 0
-				|| point.getX() >= getBoardWidth()
-				|| point.getY() >= getBoardHeight())
-			return;
-
-		if(player == null)
-			scores.remove(point);
-		else
-			scores.put(point, player);
-
-		SwingUtilities.invokeLater(() -> {
-			revalidate();
-			repaint();
-			container.getScoreboard().build();
-		});
-	}
-
-	public void fill(int playerId, Point point)
-	{
-		if(container.getPlayer(playerId) == null)
-			return;
-
-		BoardFiller.tryFill(point, container.getPlayer(playerId), scores, getBoardWidth(), getBoardHeight());
-		revalidate();
-		repaint();
-
-		SwingUtilities.invokeLater(() -> container.getScoreboard().build());
-	}
-
-	private void click(Point point)
-	{
-		if(isBoardLocked())
-			return;
-
-		this.requestFocusInWindow();
-
-		if(lastFreeze - System.nanoTime() > 0)
-		{
-			fail();
-			return;
-		}
-
-		if(getScores().containsKey(point))
-		{
-			lastFreeze = System.nanoTime() + 500_000_000;
-			fail();
-			return;
-		}
-
-		if(scores.values().contains(container.getClient())
-		&& scores.get(new Point(point.x + 1, point.y)) != container.getClient()
-		&& scores.get(new Point(point.x - 1, point.y)) != container.getClient()
-		&& scores.get(new Point(point.x, point.y + 1)) != container.getClient()
-		&& scores.get(new Point(point.x, point.y - 1)) != container.getClient())
-		{
-			lastFreeze = System.nanoTime() + 500_000_000;
-			fail();
-			return;
-		}
-
-		container.getContainer().getConnection().sendPacketLater(new PacketInClick(point));
-		scores.put(point, container.getClient());
-		playClickSound();
-
-		SwingUtilities.invokeLater(() -> {
-			revalidate();
-			repaint();
-			container.getScoreboard().build();
-		});
-	}
-
-	private void fail()
-	{
-		FailAnimation anim = new FailAnimation(new Point((int)(container.getClient().getCursorX() * getWidth()) + rand.nextInt(10), (int)(container.getClient().getCursorY() * getHeight()) + rand.nextInt(10)), System.nanoTime());
-		fails.add(anim);
-		container.getContainer().getScheduler().addTask(() -> {
-			if(this.isShowing())
-			{
-				revalidate();
-				repaint();
-			}
-		}, anim.getLength(), false);
-		playFailSound();
-	}
-
-	@Override
-	public void mouseDragged(MouseEvent e)
-	{
-		mouseMoved(e);
-	}
-
-	@Override
-	public void mouseMoved(MouseEvent e)
-	{
-		container.getClient().setCursor((float)e.getX() / getWidth(), (float)e.getY() / getHeight());
-		container.getContainer().getConnection().sendPacketLater(new PacketInCursorMove(container.getClient().getCursorX(), container.getClient().getCursorY()));
-		revalidate();
-		repaint();
-	}
-
-	@Override
-	public void mouseClicked(MouseEvent e)
-	{
-
-	}
-
-	@Override
-	public void mousePressed(MouseEvent e)
-	{
-		click(new Point(e.getX() * getBoardWidth() / getWidth(), e.getY() * getBoardHeight() / getHeight()));
-	}
-
-	@Override
-	public void mouseReleased(MouseEvent e)
-	{
-
-	}
-
-	@Override
-	public void mouseEntered(MouseEvent e)
-	{
-		mouseIn = true;
-		revalidate();
-		repaint();
-	}
-
-	@Override
-	public void mouseExited(MouseEvent e)
-	{
-		mouseIn = false;
-		revalidate();
-		repaint();
-	}
-
-	@Override
-	public void keyTyped(KeyEvent event)
-	{
-
-	}
-
-	@Override
-	public void keyPressed(KeyEvent event)
-	{
-		if(event.getKeyCode() == KeyEvent.VK_SPACE
-		|| event.getKeyCode() == KeyEvent.VK_W
-		|| event.getKeyCode() == KeyEvent.VK_E)
-		{
-			click(new Point((int)(container.getClient().getCursorX() * getBoardWidth()), (int)(container.getClient().getCursorY() * getBoardHeight())));
-		}
-		else if(event.getKeyCode() == KeyEvent.VK_F8)
-		{
-			specialSounds = !specialSounds;
-		}
-	}
-
-	@Override
-	public void keyReleased(KeyEvent e)
-	{
-
-	}
-
-	public void playClickSound()
-	{
-		container.getContainer().getResourceManager().getSound((specialSounds ? "special-" : "") + "click" + rand.nextInt(3)).play();
-	}
-
-	public void playFailSound()
-	{
-		container.getContainer().getResourceManager().getSound((specialSounds ? "special-" : "") + "fail").play();
-	}
-
-	public Map<Point, PlayerInfo> getScores()
-	{
-		return scores;
-	}
-
-	public int getBoardWidth()
-	{
-		return boardWidth;
-	}
-
-	public void setBoardWidth(int boardWidth)
-	{
-		this.boardWidth = boardWidth;
-	}
-
-	public int getBoardHeight()
-	{
-		return boardHeight;
-	}
-
-	public void setBoardHeight(int boardHeight)
-	{
-		this.boardHeight = boardHeight;
-	}
-
-	public boolean isBoardLocked()
-	{
-		return boardLocked;
-	}
-
-	public void setBoardLocked(boolean boardLocked)
-	{
-		this.boardLocked = boardLocked;
-	}
-
-	public boolean isSpectator()
-	{
-		return spectator;
-	}
-
-	public void setSpectator(boolean spectator)
-	{
-		this.spectator = spectator;
-	}
+package me.winter.trapgame.client.board;
+
+import me.winter.trapgame.shared.BoardModel;
+import me.winter.trapgame.shared.BoardSnapshot;
+import me.winter.trapgame.shared.FillMask;
+import me.winter.trapgame.shared.PlayerInfo;
+import me.winter.trapgame.shared.Task;
+import me.winter.trapgame.shared.packet.PacketInClick;
+import me.winter.trapgame.shared.packet.PacketInCursorMove;
+import me.winter.trapgame.shared.packet.PacketInSnapshotRequest;
+import me.winter.trapgame.shared.packet.PacketInViewport;
+import me.winter.trapgame.shared.packet.PacketOutBoardSnapshot;
+import me.winter.trapgame.shared.packet.PacketOutOverview;
+import me.winter.trapgame.shared.packet.PacketOutRegion;
+import me.winter.trapgame.util.ColorTransformer;
+
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+
+/**
+ * Represents the panel where players clicks and contains the buttons
+ *
+ * Created by Alexander Winter on 2016-03-28.
+ */
+
+
+public class PlayBoard extends JPanel implements MouseMotionListener, MouseListener, MouseWheelListener, KeyListener
+{
+	//boards larger than this show a part of the board that can be scrolled and zoomed
+	private static final int VIEWPORT_THRESHOLD = 64;
+	private static final int DEFAULT_VIEW_SIZE = 32;
+	private static final int MIN_VIEW_SIZE = 8;
+	private static final int MAX_VIEW_SIZE = 256;
+
+	private static final int SNAPSHOT_RETRY_DELAY = 500;
+	private static final int SNAPSHOT_MAX_RETRIES = 10;
+	private static final int SNAPSHOT_MAX_REQUESTED = 512;
+
+	private TrapGameBoard container;
+
+	private BoardModel board;
+	private PlayerInfo[] owners; //info of the owners by id, kept when they leave
+	private int boardWidth, boardHeight;
+	private boolean boardLocked, spectator, mouseIn;
+
+	private long lastFreeze; //last time the player missed
+
+	private Map<Color, BufferedImage> preloaded;
+
+	private boolean specialSounds = false;
+	private Random rand = new Random();
+
+	private List<FailAnimation> fails;
+
+	private SnapshotAssembler snapshot;
+	private Task snapshotRetry;
+	private int snapshotRetries;
+
+	private Rectangle view; //cells shown, null when showing the whole board
+	private Point mouse;
+	private int[] overview, scores;
+	private int overviewScale, overviewWidth, overviewHeight;
+
+	public PlayBoard(TrapGameBoard container, int width, int height)
+	{
+		this.container = container;
+		this.board = new BoardModel(width, height);
+		this.owners = new PlayerInfo[0];
+		preloaded = new HashMap<>();
+		fails = new ArrayList<>();
+		snapshot = new SnapshotAssembler();
+		snapshotRetry = new Task(SNAPSHOT_RETRY_DELAY, true, this::requestMissingChunks);
+		mouseIn = false;
+		boardLocked = true;
+		lastFreeze = 0;
+
+		addMouseMotionListener(this);
+		addMouseListener(this);
+		addMouseWheelListener(this);
+		addKeyListener(this);
+
+		setFocusable(true);
+
+		setBackground(new Color(0, 0, 0, 0));
+
+		boolean windows;
+
+		try
+		{
+			windows = System.getProperty("os.name").toLowerCase().contains("win");
+		}
+		catch(Exception ex)
+		{
+			windows = false;
+		}
+
+		BufferedImage image = getCursorImage(container.getClient().getColor(), !windows);
+		setCursor(Toolkit.getDefaultToolkit().createCustomCursor(image, new Point(image.getWidth() / 2, image.getHeight() / 2), "TrapGame"));
+
+		prepare(width, height);
+	}
+
+	public void prepare(int boardWidth, int boardHeight)
+	{
+		setBoardWidth(boardWidth);
+		setBoardHeight(boardHeight);
+		removeAll();
+		board.resize(boardWidth, boardHeight);
+		snapshot.reset();
+		setLayout(new GridLayout(boardWidth, boardHeight, 0, 0));
+
+		overview = null;
+		scores = null;
+		view = null;
+
+		if(boardWidth > VIEWPORT_THRESHOLD || boardHeight > VIEWPORT_THRESHOLD)
+		{
+			int width = Math.min(boardWidth, DEFAULT_VIEW_SIZE);
+			int height = Math.min(boardHeight, DEFAULT_VIEW_SIZE);
+
+			setView(new Rectangle((boardWidth - width) / 2, (boardHeight - height) / 2, width, height));
+		}
+	}
+
+	/**
+	 * Shows another part of the board and tells the server, which sends the cells that weren't seen yet
+	 * @param view cells to show, moved inside the board if needed
+	 */
+	private void setView(Rectangle view)
+	{
+		view.width = Math.max(1, Math.min(view.width, Math.min(getBoardWidth(), MAX_VIEW_SIZE)));
+		view.height = Math.max(1, Math.min(view.height, Math.min(getBoardHeight(), MAX_VIEW_SIZE)));
+		view.x = Math.max(0, Math.min(view.x, getBoardWidth() - view.width));
+		view.y = Math.max(0, Math.min(view.y, getBoardHeight() - view.height));
+
+		if(view.equals(this.view))
+			return;
+
+		this.view = view;
+		container.getContainer().getConnection().sendPacketLater(new PacketInViewport(new Rectangle(view)));
+
+		if(mouse != null)
+			moveCursor(mouse.x, mouse.y);
+
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * @return cells shown, the whole board if it isn't scrolled
+	 */
+	private Rectangle getVisibleArea()
+	{
+		return view != null ? view : new Rectangle(getBoardWidth(), getBoardHeight());
+	}
+
+	/**
+	 * @return true if only a part of the board is shown and known
+	 */
+	public boolean isViewportMode()
+	{
+		return view != null;
+	}
+
+	@Override
+	public void paintComponent(Graphics graphics)
+	{
+		Graphics2D g2draw = (Graphics2D) graphics;
+
+		g2draw.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2draw.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g2draw.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+		g2draw.drawImage(container.getContainer().getResourceManager().getImage("background"), -getX(), 0, container.getWidth(), container.getHeight(), null);
+		//g2draw.drawImage(container.getContainer().getResourceManager().getImage("board"), 0, 0, getWidth(), getHeight(), null);
+
+		Rectangle area = getVisibleArea();
+
+		float buttonWidth = getWidth() / (float)area.width;
+		float buttonHeight = getHeight() / (float)area.height;
+
+		//the only cell that can be highlighted, found once instead of testing every cell
+		int hoverX = -1, hoverY = -1;
+
+		if(!isSpectator() && !isBoardLocked() && lastFreeze - System.nanoTime() < 0 && mouseIn)
+		{
+			hoverX = (int)(container.getClient().getCursorX() * getBoardWidth());
+			hoverY = (int)(container.getClient().getCursorY() * getBoardHeight());
+
+			if(!board.isPlaceable(hoverX, hoverY, container.getClient().getPlayerId()))
+				hoverX = hoverY = -1;
+		}
+
+		for(int column = 0; column < area.width; column++)
+		{
+			for(int row = 0; row < area.height; row++)
+			{
+				int x = area.x + column, y = area.y + row;
+				PlayerInfo player = getOwner(board.get(x, y));
+
+				int xCeil = (int)((column + 1) * buttonWidth) > (int)(column * buttonWidth) + (int)buttonWidth ? 1 : 0;
+				int yCeil = (int)((row + 1) * buttonHeight) > (int)(row * buttonHeight) + (int)buttonHeight ? 1 : 0;
+
+				int width = (int)buttonWidth + xCeil;
+				int height = (int)buttonHeight + yCeil;
+
+				if(player != null)
+				{
+					g2draw.setColor(new ColorTransformer(player.getColor(), 200));
+					g2draw.fillRoundRect(
+							(int)(column * buttonWidth) + (int)(3 * buttonWidth / 256),
+							(int)(row * buttonHeight) + (int)(3 * buttonHeight / 256),
+							width - (int)(3 * buttonWidth / 128),
+							height - (int)(3 * buttonHeight / 128),
+							width / 6, height / 6);
+				}
+				else if(x == hoverX && y == hoverY)
+				{
+					g2draw.setColor(new ColorTransformer(container.getClient().getColor(), 100));
+					g2draw.fillRoundRect(
+							(int)(column * buttonWidth) + (int)(3 * buttonWidth / 256),
+							(int)(row * buttonHeight) + (int)(3 * buttonHeight / 256),
+							width - (int)(3 * buttonWidth / 128),
+							height - (int)(3 * buttonHeight / 128),
+							width / 6, height / 6);
+				}
+
+				g2draw.drawImage(container.getContainer().getResourceManager().getImage("game-button"), (int)(column * buttonWidth), (int)(row * buttonHeight), (int)buttonWidth + xCeil, (int)buttonHeight + yCeil, null);
+
+			}
+		}
+
+		for(PlayerInfo player : container.getPlayers())
+		{
+			if(player == container.getClient())
+				continue;
+			g2draw.drawImage(getCursorImage(player.getColor(), true),
+					toScreenX(player.getCursorX()) - 16,
+					toScreenY(player.getCursorY()) - 16, null);
+		}
+
+		if(view != null && overview != null)
+			paintOverview(g2draw);
+
+		for(int i = 0; i < fails.size(); i++)
+		{
+			if(fails.get(i).finished())
+			{
+				fails.remove(i);
+				continue;
+			}
+
+			int x = fails.get(i).getLocation().x;
+			int y = fails.get(i).getLocation().y;
+
+			g2draw.drawImage(container.getContainer().getResourceManager().getImage("fail-icon"), (int)(x - buttonWidth / 2), (int)(y - buttonHeight / 2), (int)buttonWidth, (int)buttonHeight, null);
+		}
+	}
+
+	/**
+	 * Draws the overview of the whole board in a corner, with the cells shown outlined
+	 * @param g2draw graphics of the board
+	 */
+	private void paintOverview(Graphics2D g2draw)
+	{
+		float blockSize = Math.min(getWidth() / 5f / overviewWidth, getHeight() / 5f / overviewHeight);
+		int left = getWidth() - (int)(overviewWidth * blockSize) - 8;
+		int top = 8;
+
+		g2draw.setColor(new Color(0, 0, 0, 120));
+		g2draw.fillRect(left, top, (int)(overviewWidth * blockSize), (int)(overviewHeight * blockSize));
+
+		for(int block = 0; block < overview.length; block++)
+		{
+			PlayerInfo player = getOwner(overview[block]);
+
+			if(player == null)
+				continue;
+
+			int x = left + (int)(block % overviewWidth * blockSize);
+			int y = top + (int)(block / overviewWidth * blockSize);
+
+			g2draw.setColor(new ColorTransformer(player.getColor(), 200));
+			g2draw.fillRect(x, y, left + (int)((block % overviewWidth + 1) * blockSize) - x, top + (int)((block / overviewWidth + 1) * blockSize) - y);
+		}
+
+		g2draw.setColor(Color.white);
+		g2draw.drawRect(left + (int)(view.x * blockSize / overviewScale), top + (int)(view.y * blockSize / overviewScale),
+				(int)(view.width * blockSize / overviewScale), (int)(view.height * blockSize / overviewScale));
+	}
+
+	/**
+	 * @param cursorX position relative to the board width
+	 * @return x on this panel
+	 */
+	private int toScreenX(float cursorX)
+	{
+		Rectangle area = getVisibleArea();
+		return (int)((cursorX * getBoardWidth() - area.x) * getWidth() / area.width);
+	}
+
+	/**
+	 * @param cursorY position relative to the board height
+	 * @return y on this panel
+	 */
+	private int toScreenY(float cursorY)
+	{
+		Rectangle area = getVisibleArea();
+		return (int)((cursorY * getBoardHeight() - area.y) * getHeight() / area.height);
+	}
+
+	public BufferedImage getCursorImage(Color color, boolean transparency)
+	{
+		BufferedImage baseCursor = (BufferedImage)container.getContainer().getResourceManager().getImage("cursor");
+
+		if(!transparency)
+		{
+			BufferedImage image = new BufferedImage(baseCursor.getWidth(), baseCursor.getHeight(), BufferedImage.TYPE_INT_ARGB);
+
+			Graphics2D graphics2D = image.createGraphics();
+
+			graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			graphics2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics2D.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+			graphics2D.setColor(Color.white);
+			graphics2D.fillRect(0, 0, image.getWidth(), image.getHeight());
+			graphics2D.drawImage(getCursorImage(color, true), 0, 0, null);
+
+			for(int x = 0; x < baseCursor.getWidth(); x++)
+			{
+				for(int y = 0; y < baseCursor.getHeight(); y++)
+				{
+					Color currentColor = new Color(image.getRGB(x, y));
+
+					if(currentColor.equals(Color.white))
+						image.setRGB(x, y, new Color(0, 0, 0, 0).getRGB());
+				}
+			}
+			graphics2D.dispose();
+
+			return image;
+		}
+
+		if(preloaded.containsKey(color))
+			return preloaded.get(color);
+
+		BufferedImage image = new BufferedImage(baseCursor.getWidth(), baseCursor.getHeight(), BufferedImage.TYPE_INT_ARGB);
+
+		Graphics2D graphics2D = image.createGraphics();
+
+		for(int x = 0; x < baseCursor.getWidth(); x++)
+		{
+			for(int y = 0; y < baseCursor.getHeight(); y++)
+			{
+				Color currentColor = new Color(baseCursor.getRGB(x, y));
+				graphics2D.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), currentColor.getRed()));
+				graphics2D.drawRect(x, y, 1, 1);
+			}
+		}
+
+
+		graphics2D.dispose();
+
+
+		preloaded.put(color, image);
+		return image;
+	}
+
+	public boolean isHover(Point point)
+	{
+		return isHover(point.x, point.y);
+	}
+
+	public boolean isHover(int x, int y)
+	{
+		return (int)(container.getClient().getCursorX() * getBoardWidth()) == x
+			&& (int)(container.getClient().getCursorY() * getBoardHeight()) == y;
+	}
+
+	public int getScore(PlayerInfo info)
+	{
+		//only the cells in view are known, the server counts the others
+		if(view != null && scores != null)
+			return info.getPlayerId() >= 0 && info.getPlayerId() < scores.length ? scores[info.getPlayerId()] : 0;
+
+		return board.getCount(info.getPlayerId());
+	}
+
+	/**
+	 * @param playerId id of a player
+	 * @return the info of the player owning cells with that id, null if unknown
+	 */
+	public PlayerInfo getOwner(int playerId)
+	{
+		return playerId >= 0 && playerId < owners.length ? owners[playerId] : null;
+	}
+
+	/**
+	 * Remembers the info of a player so its cells can still be drawn after it left
+	 *
+	 * @param playerId id of a player about to own cells, or BoardModel.EMPTY
+	 * @return false if the player is unknown
+	 */
+	private boolean prepareOwner(int playerId)
+	{
+		if(playerId == BoardModel.EMPTY)
+			return true;
+
+		if(playerId < 0)
+			return false;
+
+		PlayerInfo player = container.getPlayer(playerId);
+
+		if(player != null)
+		{
+			if(playerId >= owners.length)
+				owners = Arrays.copyOf(owners, playerId + 1);
+			owners[playerId] = player;
+		}
+
+		return getOwner(playerId) != null;
+	}
+
+	/**
+	 * Empties the board and forgets the owners of its cells
+	 */
+	public void clear()
+	{
+		board.clear();
+		Arrays.fill(owners, null);
+		overview = null;
+		scores = null;
+	}
+
+	public void place(int playerId, Point point)
+	{
+		if(!prepareOwner(playerId) || !board.contains(point.x, point.y))
+			return;
+
+		board.set(point.x, point.y, playerId);
+
+		SwingUtilities.invokeLater(() -> {
+			revalidate();
+			repaint();
+			container.getScoreboard().build();
+		});
+	}
+
+	/**
+	 * Keeps a chunk of a board snapshot and applies the snapshot once all its chunks arrived
+	 * Missing chunks are asked again to the server until they arrive
+	 *
+	 * @param chunk chunk received
+	 */
+	public void receiveSnapshot(PacketOutBoardSnapshot chunk)
+	{
+		if(!snapshot.accept(chunk))
+		{
+			if(snapshot.isPending() && !snapshotRetry.isRegistered())
+			{
+				snapshotRetries = 0;
+				container.getContainer().getScheduler().addTask(snapshotRetry);
+			}
+			return;
+		}
+
+		snapshotRetry.cancel();
+
+		if(snapshot.getBoardWidth() != getBoardWidth() || snapshot.getBoardHeight() != getBoardHeight())
+			return;
+
+		try
+		{
+			applySnapshot(BoardSnapshot.decode(snapshot.getData(), getBoardWidth() * getBoardHeight()));
+		}
+		catch(IOException ex)
+		{
+			container.getContainer().getLogger().log(Level.WARNING, "Received an invalid board snapshot", ex);
+		}
+	}
+
+	private void requestMissingChunks()
+	{
+		if(!snapshot.isPending() || snapshotRetries++ >= SNAPSHOT_MAX_RETRIES)
+		{
+			snapshotRetry.cancel();
+			return;
+		}
+
+		int[] missing = snapshot.getMissing();
+
+		if(missing.length > SNAPSHOT_MAX_REQUESTED)
+			missing = Arrays.copyOf(missing, SNAPSHOT_MAX_REQUESTED);
+
+		container.getContainer().getConnection().sendPacketLater(new PacketInSnapshotRequest(snapshot.getSnapshotId(), missing));
+	}
+
+	/**
+	 * Gives the owned cells of a snapshot to their owner
+	 * Empty cells are left as they are since cells placed after the snapshot was taken may already be known
+	 *
+	 * @param cells owner id of each cell row by row
+	 */
+	private void applySnapshot(int[] cells)
+	{
+		for(int i = 0; i < cells.length; i++)
+			if(cells[i] != BoardModel.EMPTY && prepareOwner(cells[i]))
+				board.set(i, cells[i]);
+
+		SwingUtilities.invokeLater(() -> {
+			revalidate();
+			repaint();
+			container.getScoreboard().build();
+		});
+	}
+
+	/**
+	 * Gives the owned cells of a region to their owner, sent when scrolling to cells not seen yet
+	 * @param region cells of a rectangle of the board
+	 */
+	public void receiveRegion(PacketOutRegion region)
+	{
+		Rectangle area = region.getRegion();
+		int[] cells;
+
+		try
+		{
+			cells = BoardSnapshot.decode(region.getData(), area.width * area.height);
+		}
+		catch(IOException ex)
+		{
+			container.getContainer().getLogger().log(Level.WARNING, "Received an invalid board region", ex);
+			return;
+		}
+
+		for(int i = 0; i < cells.length; i++)
+		{
+			int x = area.x + i % area.width;
+			int y = area.y + i / area.width;
+
+			if(cells[i] != BoardModel.EMPTY && board.contains(x, y) && prepareOwner(cells[i]))
+				board.set(x, y, cells[i]);
+		}
+
+		SwingUtilities.invokeLater(() -> {
+			revalidate();
+			repaint();
+		});
+	}
+
+	/**
+	 * Keeps the overview of the whole board and the scores counted by the server
+	 * @param packet overview received
+	 */
+	public void receiveOverview(PacketOutOverview packet)
+	{
+		int[] blocks;
+
+		try
+		{
+			blocks = BoardSnapshot.decode(packet.getData(), packet.getWidth() * packet.getHeight());
+		}
+		catch(IOException ex)
+		{
+			container.getContainer().getLogger().log(Level.WARNING, "Received an invalid board overview", ex);
+			return;
+		}
+
+		for(int block : blocks)
+			prepareOwner(block);
+
+		overviewScale = packet.getScale();
+		overviewWidth = packet.getWidth();
+		overviewHeight = packet.getHeight();
+		overview = blocks;
+		scores = packet.getScores();
+
+		SwingUtilities.invokeLater(() -> {
+			revalidate();
+			repaint();
+			container.getScoreboard().build();
+		});
+	}
+
+	/**
+	 * Applies a fill done by the server, the cells are given as they are without filling anything here
+	 *
+	 * @param playerId owner of the fill
+	 * @param mask cells filled
+	 */
+	public void fill(int playerId, FillMask mask)
+	{
+		if(playerId == BoardModel.EMPTY || !prepareOwner(playerId))
+			return;
+
+		mask.apply(board, playerId);
+		revalidate();
+		repaint();
+
+		SwingUtilities.invokeLater(() -> container.getScoreboard().build());
+	}
+
+	private void click(Point point)
+	{
+		if(isBoardLocked())
+			return;
+
+		this.requestFocusInWindow();
+
+		if(lastFreeze - System.nanoTime() > 0)
+		{
+			fail();
+			return;
+		}
+
+		int clientId = container.getClient().getPlayerId();
+
+		if(!board.contains(point.x, point.y))
+			return;
+
+		if(!board.isEmpty(point.x, point.y))
+		{
+			lastFreeze = System.nanoTime() + 500_000_000;
+			fail();
+			return;
+		}
+
+		if(!board.isPlaceable(point.x, point.y, clientId))
+		{
+			lastFreeze = System.nanoTime() + 500_000_000;
+			fail();
+			return;
+		}
+
+		container.getContainer().getConnection().sendPacketLater(new PacketInClick(point));
+		prepareOwner(clientId);
+		board.set(point.x, point.y, clientId);
+		playClickSound();
+
+		SwingUtilities.invokeLater(() -> {
+			revalidate();
+			repaint();
+			container.getScoreboard().build();
+		});
+	}
+
+	private void fail()
+	{
+		FailAnimation anim = new FailAnimation(new Point(toScreenX(container.getClient().getCursorX()) + rand.nextInt(10), toScreenY(container.getClient().getCursorY()) + rand.nextInt(10)), System.nanoTime());
+		fails.add(anim);
+		container.getContainer().getScheduler().addTask(() -> {
+			if(this.isShowing())
+			{
+				revalidate();
+				repaint();
+			}
+		}, anim.getLength(), false);
+		playFailSound();
+	}
+
+	@Override
+	public void mouseDragged(MouseEvent e)
+	{
+		mouseMoved(e);
+	}
+
+	@Override
+	public void mouseMoved(MouseEvent e)
+	{
+		mouse = e.getPoint();
+		moveCursor(e.getX(), e.getY());
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Moves the cursor of the client over a point of this panel
+	 * @param x x on this panel
+	 * @param y y on this panel
+	 */
+	private void moveCursor(int x, int y)
+	{
+		Rectangle area = getVisibleArea();
+
+		container.getClient().setCursor((area.x + (float)x * area.width / getWidth()) / getBoardWidth(), (area.y + (float)y * area.height / getHeight()) / getBoardHeight());
+		container.getContainer().getConnection().sendPacketLater(new PacketInCursorMove(container.getClient().getCursorX(), container.getClient().getCursorY()));
+	}
+
+	@Override
+	public void mouseWheelMoved(MouseWheelEvent e)
+	{
+		if(view == null)
+			return;
+
+		//zooms around the cell under the mouse
+		float zoom = e.getWheelRotation() > 0 ? 1.25f : 0.8f;
+		int width = Math.max(MIN_VIEW_SIZE, Math.round(view.width * zoom));
+		int height = Math.max(MIN_VIEW_SIZE, Math.round(view.height * zoom));
+		int cellX = view.x + e.getX() * view.width / Math.max(1, getWidth());
+		int cellY = view.y + e.getY() * view.height / Math.max(1, getHeight());
+
+		setView(new Rectangle(cellX - (cellX - view.x) * width / view.width, cellY - (cellY - view.y) * height / view.height, width, height));
+	}
+
+	@Override
+	public void mouseClicked(MouseEvent e)
+	{
+
+	}
+
+	@Override
+	public void mousePressed(MouseEvent e)
+	{
+		Rectangle area = getVisibleArea();
+		click(new Point(area.x + e.getX() * area.width / getWidth(), area.y + e.getY() * area.height / getHeight()));
+	}
+
+	@Override
+	public void mouseReleased(MouseEvent e)
+	{
+
+	}
+
+	@Override
+	public void mouseEntered(MouseEvent e)
+	{
+		mouseIn = true;
+		revalidate();
+		repaint();
+	}
+
+	@Override
+	public void mouseExited(MouseEvent e)
+	{
+		mouseIn = false;
+		revalidate();
+		repaint();
+	}
+
+	@Override
+	public void keyTyped(KeyEvent event)
+	{
+
+	}
+
+	@Override
+	public void keyPressed(KeyEvent event)
+	{
+		if(event.getKeyCode() == KeyEvent.VK_SPACE
+		|| event.getKeyCode() == KeyEvent.VK_W
+		|| event.getKeyCode() == KeyEvent.VK_E)
+		{
+			click(new Point((int)(container.getClient().getCursorX() * getBoardWidth()), (int)(container.getClient().getCursorY() * getBoardHeight())));
+		}
+		else if(event.getKeyCode() == KeyEvent.VK_F8)
+		{
+			specialSounds = !specialSounds;
+		}
+		else if(view != null && (event.getKeyCode() == KeyEvent.VK_LEFT || event.getKeyCode() == KeyEvent.VK_RIGHT))
+		{
+			int step = Math.max(1, view.width / 4) * (event.getKeyCode() == KeyEvent.VK_LEFT ? -1 : 1);
+			setView(new Rectangle(view.x + step, view.y, view.width, view.height));
+		}
+		else if(view != null && (event.getKeyCode() == KeyEvent.VK_UP || event.getKeyCode() == KeyEvent.VK_DOWN))
+		{
+			int step = Math.max(1, view.height / 4) * (event.getKeyCode() == KeyEvent.VK_UP ? -1 : 1);
+			setView(new Rectangle(view.x, view.y + step, view.width, view.height));
+		}
+	}
+
+	@Override
+	public void keyReleased(KeyEvent e)
+	{
+
+	}
+
+	public void playClickSound()
+	{
+		container.getContainer().getResourceManager().getSound((specialSounds ? "special-" : "") + "click" + rand.nextInt(3)).play();
+	}
+
+	public void playFailSound()
+	{
+		container.getContainer().getResourceManager().getSound((specialSounds ? "special-" : "") + "fail").play();
+	}
+
+	public BoardModel getBoard()
+	{
+		return board;
+	}
+
+	public int getBoardWidth()
+	{
+		return boardWidth;
+	}
+
+	public void setBoardWidth(int boardWidth)
+	{
+		this.boardWidth = boardWidth;
+	}
+
+	public int getBoardHeight()
+	{
+		return boardHeight;
+	}
+
+	public void setBoardHeight(int boardHeight)
+	{
+		this.boardHeight = boardHeight;
+	}
+
+	public boolean isBoardLocked()
+	{
+		return boardLocked;
+	}
+
+	public void setBoardLocked(boolean boardLocked)
+	{
+		this.boardLocked = boardLocked;
+	}
+
+	public boolean isSpectator()
+	{
+		return spectator;
+	}
+
+	public void setSpectator(boolean spectator)
+	{
+		this.spectator = spectator;
+	}
 }
\ No newline at end of file
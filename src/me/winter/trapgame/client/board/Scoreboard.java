@@ -1,12 +1,14 @@
 package me.winter.trapgame.client.board;
 
 import me.winter.trapgame.client.SimpleLayout;
+import me.winter.trapgame.shared.BoardModel;
 import me.winter.trapgame.shared.PlayerInfo;
 import me.winter.trapgame.util.ColorTransformer;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -53,8 +55,7 @@ public class Scoreboard extends JPanel
 
 		add(buttonContainer, SimpleLayout.constraints(0, 0.9, 1, 0.1));
 
-		List<PlayerInfo> leaderBoard = new ArrayList<>(getBoard().getPlayers());
-		leaderBoard.sort((player1, player2) -> board.getPlayBoard().getScore(player2) - board.getPlayBoard().getScore(player1));
+		List<PlayerInfo> leaderBoard = getLeaderBoard();
 
 		for(int index = 0; index < leaderBoard.size(); index++)
 		{
@@ -92,6 +93,42 @@ public class Scoreboard extends JPanel
 		repaint();
 	}
 
+	/**
+	 * Lists the players by score, read from the ranking kept by the board
+	 * Players without any cell come last in the order they joined
+	 *
+	 * @return players connected, best score first
+	 */
+	private List<PlayerInfo> getLeaderBoard()
+	{
+		PlayBoard playBoard = board.getPlayBoard();
+		BoardModel model = playBoard.getBoard();
+		Collection<PlayerInfo> players = getBoard().getPlayers();
+		List<PlayerInfo> leaderBoard = new ArrayList<>(players.size());
+
+		//only the cells in view are known, the scores come from the server
+		if(playBoard.isViewportMode())
+		{
+			leaderBoard.addAll(players);
+			leaderBoard.sort((first, second) -> playBoard.getScore(second) - playBoard.getScore(first));
+			return leaderBoard;
+		}
+
+		for(int rank = 0; rank < model.getRankedCount(); rank++)
+		{
+			PlayerInfo player = playBoard.getOwner(model.getRanked(rank));
+
+			if(player != null && players.contains(player))
+				leaderBoard.add(player);
+		}
+
+		for(PlayerInfo player : players)
+			if(model.getRank(player.getPlayerId()) < 0)
+				leaderBoard.add(player);
+
+		return leaderBoard;
+	}
+
 	@Override
 	public void paintComponent(Graphics g)
 	{
@@ -0,0 +1,120 @@
+package me.winter.trapgame.client.board;
+
+import me.winter.trapgame.shared.packet.PacketOutBoardSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Puts back together the chunks of a board snapshot received in any order
+ * A chunk of a newer snapshot drops the one being assembled
+ */
+public class SnapshotAssembler
+{
+	private int snapshotId;
+	private int boardWidth, boardHeight;
+	private byte[][] chunks;
+	private int received;
+
+	public SnapshotAssembler()
+	{
+		reset();
+	}
+
+	/**
+	 * Keeps a received chunk
+	 *
+	 * @param chunk chunk received
+	 * @return true if the snapshot it belongs to is now complete
+	 */
+	public boolean accept(PacketOutBoardSnapshot chunk)
+	{
+		if(chunk.getSnapshotId() != snapshotId || chunks == null)
+		{
+			if(chunk.getSnapshotId() < snapshotId && chunks != null)
+				return false;
+
+			snapshotId = chunk.getSnapshotId();
+			boardWidth = chunk.getBoardWidth();
+			boardHeight = chunk.getBoardHeight();
+			chunks = new byte[chunk.getChunkCount()][];
+			received = 0;
+		}
+
+		int index = chunk.getChunkIndex();
+
+		if(index >= chunks.length || chunks[index] != null)
+			return false;
+
+		chunks[index] = chunk.getData();
+		received++;
+
+		return isComplete();
+	}
+
+	public boolean isComplete()
+	{
+		return chunks != null && received == chunks.length;
+	}
+
+	/**
+	 * @return indices of the chunks still missing from the current snapshot
+	 */
+	public int[] getMissing()
+	{
+		if(chunks == null)
+			return new int[0];
+
+		int[] missing = new int[chunks.length - received];
+		int count = 0;
+
+		for(int i = 0; i < chunks.length && count < missing.length; i++)
+			if(chunks[i] == null)
+				missing[count++] = i;
+
+		return Arrays.copyOf(missing, count);
+	}
+
+	/**
+	 * @return the encoded grid of the complete snapshot
+	 */
+	public byte[] getData()
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		for(byte[] chunk : chunks)
+			stream.write(chunk, 0, chunk.length);
+
+		return stream.toByteArray();
+	}
+
+	/**
+	 * Forgets the current snapshot, any chunk received after starts a new one
+	 */
+	public void reset()
+	{
+		snapshotId = -1;
+		chunks = null;
+		received = 0;
+	}
+
+	public boolean isPending()
+	{
+		return chunks != null && !isComplete();
+	}
+
+	public int getSnapshotId()
+	{
+		return snapshotId;
+	}
+
+	public int getBoardWidth()
+	{
+		return boardWidth;
+	}
+
+	public int getBoardHeight()
+	{
+		return boardHeight;
+	}
+}
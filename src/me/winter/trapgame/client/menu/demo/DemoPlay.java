@@ -1,5 +1,6 @@
 package me.winter.trapgame.client.menu.demo;
 
+import me.winter.trapgame.shared.BoardModel;
 import me.winter.trapgame.shared.Task;
 import me.winter.trapgame.util.BetterRandom;
 
@@ -7,7 +8,6 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Map;
 
 /**
  * <p>Undocumented :(</p>
@@ -17,15 +17,16 @@ import java.util.Map;
 public class DemoPlay extends Task
 {
 	private DemoPlayBoard demo;
-	private Color color;
+	private int owner;
 	private BetterRandom random;
 
-	public DemoPlay(DemoPlayBoard demo, Color color)
+	public DemoPlay(DemoPlayBoard demo, int owner)
 	{
 		super(750, true);
-		this.color = color;
+		this.owner = owner;
 		this.demo = demo;
 		random = new BetterRandom();
+		setTag(demo);
 	}
 
 	@Override
@@ -37,31 +38,30 @@ public class DemoPlay extends Task
 			return;
 		}
 
-		if(demo.getBoard().size() == demo.getBoardWidth() * demo.getBoardWidth())
+		BoardModel board = demo.getBoard();
+
+		if(board.isFull())
 		{
 			cancel();
 			return;
 		}
 
-		if(!demo.getBoard().containsValue(color))
+		if(board.getCount(owner) == 0)
 		{
 			Point point;
 			do
 			{
 				point = random.nextPoint(demo.getBoardWidth(), demo.getBoardWidth());
 			}
-			while(demo.getBoard().containsKey(point));
+			while(!board.isEmpty(point.x, point.y));
 
-			demo.place(point, color);
+			demo.place(point, owner);
 			return;
 		}
 
-		java.util.List<Map.Entry<Point, Color>> entries = new ArrayList<>(demo.getBoard().entrySet());
-		Collections.reverse(entries);
-
-		for(Map.Entry<Point, Color> entry : entries)
+		for(int index = board.getSize() - 1; index >= 0; index--)
 		{
-			if(!entry.getValue().equals(color))
+			if(board.get(index) != owner)
 				continue;
 
 			java.util.List<Point> directions = new ArrayList<>(Arrays.asList(new Point(0, 1), new Point(0, -1), new Point(1, 0), new Point(-1, 0)));
@@ -70,16 +70,15 @@ public class DemoPlay extends Task
 
 			for(Point direction : directions)
 			{
-				Point point = new Point(entry.getKey());
+				Point point = new Point(index % board.getWidth(), index / board.getWidth());
 				point.translate((int)direction.getX(), (int)direction.getY());
 
-				if(point.getX() >= demo.getBoardWidth() || point.getY() >= demo.getBoardWidth()
-				|| point.getX() < 0 || point.getY() < 0)
+				if(!board.contains(point.x, point.y))
 					continue;
 
-				if(demo.getBoard().get(point) == null)
+				if(board.isEmpty(point.x, point.y))
 				{
-					demo.place(point, color);
+					demo.place(point, owner);
 					return;
 				}
 			}
@@ -2,13 +2,12 @@ package me.winter.trapgame.client.menu.demo;
 
 import me.winter.trapgame.client.menu.TrapGameMenu;
 import me.winter.trapgame.server.TrapGameServer;
+import me.winter.trapgame.shared.BoardModel;
 import me.winter.trapgame.shared.Task;
 import me.winter.trapgame.util.ColorTransformer;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * <p>A play board used in the menu to show a small part of the gameplay</p>
@@ -19,14 +18,14 @@ public class DemoPlayBoard extends JPanel
 {
 	private TrapGameMenu menu;
 
-	private Map<Point, Color> board;
+	private BoardModel board; //owners are indices of TrapGameServer.COLORS
 	private int boardWidth;
 
 	public DemoPlayBoard(TrapGameMenu menu, int boardWidth)
 	{
 		this.menu = menu;
 		setBackground(new Color(0, 0, 0, 0));
-		board = new HashMap<>();
+		board = new BoardModel(boardWidth, boardWidth);
 		this.boardWidth = boardWidth;
 
 		reset();
@@ -54,7 +53,8 @@ public class DemoPlayBoard extends JPanel
 		{
 			for(int y = 0; y < boardWidth; y++)
 			{
-				Color color = board.get(new Point(x, y));
+				int owner = board.get(x, y);
+				Color color = owner != BoardModel.EMPTY ? TrapGameServer.COLORS[owner] : null;
 
 				int xCeil = (int)((x + 1) * buttonWidth) > (int)(x * buttonWidth) + (int)buttonWidth ? 1 : 0;
 				int yCeil = (int)((y + 1) * buttonWidth) > (int)(y * buttonWidth) + (int)buttonWidth ? 1 : 0;
@@ -84,9 +84,9 @@ public class DemoPlayBoard extends JPanel
 		return getMenu().getRightPane() == this && getMenu() == getMenu().getClient().getMenu();
 	}
 
-	public void place(Point point, Color color)
+	public void place(Point point, int owner)
 	{
-		board.put(point, color);
+		board.set(point.x, point.y, owner);
 		revalidate();
 		repaint();
 
@@ -97,11 +97,11 @@ public class DemoPlayBoard extends JPanel
 	{
 		board.clear();
 
-		menu.getClient().getScheduler().cancelTasks(DemoPlay.class);
+		menu.getClient().getScheduler().cancelTag(this);
 
 		for(int i = 0; i < 4; i++)
 		{
-			Task task = new DemoPlay(this, TrapGameServer.COLORS[i]);
+			Task task = new DemoPlay(this, i);
 			menu.getClient().getScheduler().addTask(task);
 			task.setLastWork(menu.getClient().getScheduler().getTimeMillis() - task.getDelay() + 50);
 		}
@@ -117,7 +117,7 @@ public class DemoPlayBoard extends JPanel
 		return boardWidth;
 	}
 
-	public Map<Point, Color> getBoard()
+	public BoardModel getBoard()
 	{
 		return board;
 	}
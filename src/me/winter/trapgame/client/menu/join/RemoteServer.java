@@ -105,7 +105,7 @@ public class RemoteServer
 		getServerList().getJoinForm().getMenu().getClient().getScheduler().addTask(pingAnimation);
 		pinging = true;
 
-		new Thread(() -> {
+		boolean accepted = getServerList().getJoinForm().getMenu().getClient().getExecutor().execute(() -> {
 
 			display.setPing("...");
 
@@ -132,7 +132,14 @@ public class RemoteServer
 				this.pinging = false;
 			}
 
-		}).start();
+		});
+
+		if(!accepted)
+		{
+			pingAnimation.cancel();
+			pinging = false;
+			callBack.call(false);
+		}
 	}
 
 	public void connectTo()
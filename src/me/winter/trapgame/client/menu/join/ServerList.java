@@ -63,7 +63,7 @@ public class ServerList extends JPanel
 	{
 		servers.forEach(RemoteServer::ping);
 		NetUtil.getBroadcastAddresses().forEach(x -> {
-			new Thread(() -> {
+			joinForm.getMenu().getClient().getExecutor().execute(() -> {
 				try
 				{
 					joinForm.getMenu().getClient().getConnection().broadcast(x, 1254, 100).forEach(server -> addServer(new RemoteServer(this, server)));
@@ -73,7 +73,7 @@ public class ServerList extends JPanel
 				{
 
 				}
-			}).start();
+			});
 		});
 
 		updateDisplay();
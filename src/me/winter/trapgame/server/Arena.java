@@ -0,0 +1,334 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.server.state.GameState;
+import me.winter.trapgame.server.state.StandbyState;
+import me.winter.trapgame.server.state.State;
+import me.winter.trapgame.shared.PlayerInfo;
+import me.winter.trapgame.shared.Scheduler;
+import me.winter.trapgame.shared.packet.Packet;
+import me.winter.trapgame.shared.packet.PacketOutBoardSize;
+import me.winter.trapgame.shared.packet.PacketOutChat;
+import me.winter.trapgame.shared.packet.PacketOutJoin;
+import me.winter.trapgame.shared.packet.PacketOutLeave;
+import me.winter.trapgame.shared.packet.PacketOutWelcome;
+import me.winter.trapgame.util.StringUtil;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A match running independently from the others of the server, with its own
+ * players, board and state. Player ids are only unique inside an arena.
+ *
+ * Everything about the match is done on the thread of its ArenaLoop, through its scheduler
+ */
+public class Arena
+{
+	/**
+	 * Maximum width and height in cells of the part of the board a player views
+	 */
+	public static final int MAX_VIEWPORT_SIZE = 256;
+
+	private TrapGameServer server;
+	private String name;
+
+	private ArenaLoop loop;
+	private Scheduler scheduler;
+	private volatile State state;
+	private PlayerRegistry players;
+	private CursorTracker cursorTracker;
+	private AtomicInteger reserved;
+
+	private int minPlayers, maxPlayers;
+	private int boardWidth, boardHeight;
+	private int waitingTimer;
+
+	public Arena(TrapGameServer server, String name, ArenaLoop loop, ServerProperties properties)
+	{
+		this.server = server;
+		this.name = name;
+		this.loop = loop;
+		this.scheduler = loop.createScheduler();
+		this.players = new PlayerRegistry();
+		this.reserved = new AtomicInteger(0);
+
+		this.minPlayers = properties.getMinPlayers();
+		this.maxPlayers = properties.getMaxPlayers();
+		this.boardWidth = Math.max(1, properties.getBoardWidth());
+		this.boardHeight = Math.max(1, properties.getBoardHeight());
+		this.waitingTimer = properties.getTimer();
+
+		this.state = new StandbyState(this);
+		this.cursorTracker = new CursorTracker(this, properties.getCursorRate());
+
+		loop.add(this);
+	}
+
+	/**
+	 * Holds a place for a player about to join, from any thread
+	 * @return false if the arena is full
+	 */
+	public boolean reserve()
+	{
+		int current;
+
+		do
+		{
+			current = reserved.get();
+
+			if(current >= maxPlayers)
+				return false;
+		}
+		while(!reserved.compareAndSet(current, current + 1));
+
+		return true;
+	}
+
+	/**
+	 * Stops accepting players if the arena is empty, from any thread
+	 * @return true if the arena was empty and can be closed
+	 */
+	boolean tryClose()
+	{
+		return reserved.compareAndSet(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return amount of players in the arena or about to join it
+	 */
+	public int getPopulation()
+	{
+		return reserved.get();
+	}
+
+	/**
+	 * Runs something on the thread of this arena, right away if called from it
+	 * @param runnable what to run
+	 */
+	public void execute(Runnable runnable)
+	{
+		if(loop.isCurrentThread())
+			runnable.run();
+		else
+			scheduler.execute(runnable);
+	}
+
+	/**
+	 * Adds a player who reserved a place, on the thread of this arena
+	 * @param player player joining
+	 */
+	public void join(Player player)
+	{
+		player.setArena(this);
+		player.setViewport(null);
+		player.getInfo().setPlayerId(players.allocateId());
+		player.getInfo().setColor(server.getColor(player.getId()));
+
+		sendToAllLater(new PacketOutJoin(player.getInfo()));
+		players.add(player);
+		player.getConnection().sendPacketLater(new PacketOutWelcome(player.getId(), getPlayersInfo(), boardWidth, boardHeight));
+		broadcast(player.getFormattedName() + " has joined the game.");
+		getState().join(player);
+	}
+
+	/**
+	 * Removes a player, on the thread of this arena
+	 * @param player player leaving
+	 * @return true if the player was in this arena
+	 */
+	public boolean leave(Player player)
+	{
+		if(!players.remove(player))
+			return false;
+
+		reserved.decrementAndGet();
+		broadcast(player.getFormattedName() + " has left the game.");
+		getState().leave(player);
+		sendToAllLater(new PacketOutLeave(player.getId()));
+		return true;
+	}
+
+	public List<PlayerInfo> getPlayersInfo()
+	{
+		List<PlayerInfo> players = new ArrayList<>();
+
+		getPlayers().forEach(player -> players.add(player.getInfo()));
+
+		return players;
+	}
+
+	public void broadcast(String message)
+	{
+		server.log(message);
+		sendToAllLater(new PacketOutChat(message));
+	}
+
+	public void broadcast(Color color, String message)
+	{
+		server.log(message);
+		sendToAllLater(new PacketOutChat("<span style=\"color: " + StringUtil.toCSS(color) + ";\">" + message + "</span>"));
+	}
+
+	/**
+	 * Encodes a packet once and sends it right away to every player of the arena
+	 * @param packet packet to send
+	 */
+	public void sendToAll(Packet packet)
+	{
+		server.getConnection().sendToAll(packet, getPlayers());
+	}
+
+	/**
+	 * Encodes a packet once and queues it for every player of the arena
+	 * @param packet packet to send
+	 */
+	public void sendToAllLater(Packet packet)
+	{
+		server.getConnection().sendToAllLater(packet, getPlayers());
+	}
+
+	/**
+	 * Encodes a packet once and queues it for every player of the arena seeing a part of the board
+	 * @param packet packet to send
+	 * @param area cells concerned by the packet
+	 */
+	public void sendToViewersLater(Packet packet, Rectangle area)
+	{
+		List<Player> viewers = new ArrayList<>();
+
+		for(Player player : getPlayers())
+			if(player.isViewing(area))
+				viewers.add(player);
+
+		if(!viewers.isEmpty())
+			server.getConnection().sendToAllLater(packet, viewers);
+	}
+
+	/**
+	 * Lets the frames queued for the players of this arena be sent, for a deferred pipeline
+	 */
+	public void flush()
+	{
+		server.getConnection().getPipeline().flush(getPlayers());
+	}
+
+	/**
+	 * Checks the part of the board a client asked to view and turns it into the cells it is sent
+	 *
+	 * @param requested rectangle of cells sent by the client
+	 * @return the viewport to give the player, null if the request is empty, too large or outside of the board
+	 */
+	public Rectangle getViewport(Rectangle requested)
+	{
+		if(requested.isEmpty() || requested.width > MAX_VIEWPORT_SIZE || requested.height > MAX_VIEWPORT_SIZE)
+			return null;
+
+		//the cells around the viewport are known as well, placing on its border depends on them
+		Rectangle viewport = new Rectangle(requested.x - 1, requested.y - 1, requested.width + 2, requested.height + 2);
+		viewport = viewport.intersection(new Rectangle(boardWidth, boardHeight));
+
+		return viewport.isEmpty() ? null : viewport;
+	}
+
+	/**
+	 * Stops running this arena, its players should have left
+	 */
+	public void close()
+	{
+		loop.remove(this);
+		scheduler.cancelAll();
+	}
+
+	public TrapGameServer getServer()
+	{
+		return server;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public Scheduler getScheduler()
+	{
+		return scheduler;
+	}
+
+	public State getState()
+	{
+		return state;
+	}
+
+	public void setState(State state)
+	{
+		this.state = state;
+	}
+
+	public List<Player> getPlayers()
+	{
+		return players.getPlayers();
+	}
+
+	public PlayerRegistry getPlayerRegistry()
+	{
+		return players;
+	}
+
+	public CursorTracker getCursorTracker()
+	{
+		return cursorTracker;
+	}
+
+	public int getMinPlayers()
+	{
+		return minPlayers;
+	}
+
+	public void setMinPlayers(int minPlayers)
+	{
+		this.minPlayers = minPlayers;
+	}
+
+	public int getMaxPlayers()
+	{
+		return maxPlayers;
+	}
+
+	public void setMaxPlayers(int maxPlayers)
+	{
+		this.maxPlayers = maxPlayers;
+	}
+
+	public void setBoardSize(int boardWidth, int boardHeight)
+	{
+		this.boardWidth = boardWidth > 0 ? boardWidth : 1;
+		this.boardHeight = boardHeight > 0 ? boardHeight : 1;
+
+		sendToAll(new PacketOutBoardSize(this.boardWidth, this.boardHeight));
+
+		if(getState() instanceof GameState)
+			((GameState)getState()).resize();
+	}
+
+	public int getBoardWidth()
+	{
+		return boardWidth;
+	}
+
+	public int getBoardHeight()
+	{
+		return boardHeight;
+	}
+
+	public int getWaitingTimer()
+	{
+		return waitingTimer;
+	}
+
+	public void setWaitingTimer(int waitingTimer)
+	{
+		this.waitingTimer = waitingTimer;
+	}
+}
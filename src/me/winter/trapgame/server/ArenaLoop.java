@@ -0,0 +1,221 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.shared.Clock;
+import me.winter.trapgame.shared.Scheduler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A thread running the schedulers of many arenas one after the other
+ * The schedulers of its arenas share its monitor, so adding a task to any of them wakes it up
+ *
+ * With a tick rate, the loop ignores wake-ups and runs fixed-rate ticks instead: it takes the work
+ * received by every arena, runs the tasks due, then sends everything queued during the tick at once
+ */
+public class ArenaLoop implements Runnable
+{
+	private Logger logger;
+	private Object monitor;
+	private Clock clock;
+	private List<Arena> arenas;
+	private Thread thread;
+	private volatile boolean stop;
+
+	private int tickRate;
+	private TickStats tickStats;
+
+	public ArenaLoop(Logger logger, String name)
+	{
+		this(logger, name, 0, Clock.SYSTEM);
+	}
+
+	/**
+	 * @param logger logger of the errors
+	 * @param name name of the thread
+	 * @param tickRate ticks per second, 0 to run tasks as soon as they are due
+	 * @param clock source of time of the schedulers, ticks always follow real time
+	 */
+	public ArenaLoop(Logger logger, String name, int tickRate, Clock clock)
+	{
+		this.logger = logger;
+		this.monitor = new Object();
+		this.clock = clock;
+		clock.register(monitor);
+		this.arenas = new CopyOnWriteArrayList<>();
+		this.thread = new Thread(this, name);
+		this.thread.setDaemon(true);
+		this.stop = false;
+		this.tickRate = Math.max(0, Math.min(tickRate, 1000));
+		this.tickStats = this.tickRate > 0 ? new TickStats(1_000_000_000L / this.tickRate) : null;
+	}
+
+	public void start()
+	{
+		thread.start();
+	}
+
+	public void stop()
+	{
+		stop = true;
+
+		synchronized(monitor)
+		{
+			monitor.notifyAll();
+		}
+
+		LockSupport.unpark(thread);
+	}
+
+	@Override
+	public void run()
+	{
+		if(tickRate > 0)
+		{
+			runTicks();
+			return;
+		}
+
+		while(!stop)
+		{
+			try
+			{
+				synchronized(monitor)
+				{
+					//computed while holding the monitor so a task added meanwhile can't be missed
+					long toWait = getWaitingDelay();
+
+					if(toWait > 0 && !stop)
+						clock.await(monitor, toWait == Long.MAX_VALUE ? 0 : toWait);
+				}
+
+				for(Arena arena : arenas)
+					arena.getScheduler().update();
+			}
+			catch(InterruptedException ex)
+			{
+				return;
+			}
+			catch(Exception ex)
+			{
+				logger.log(Level.SEVERE, "Unexpected exception in " + thread.getName(), ex);
+			}
+		}
+	}
+
+	private void runTicks()
+	{
+		long interval = tickStats.getInterval();
+		long nextTick = System.nanoTime();
+
+		while(!stop)
+		{
+			try
+			{
+				long start = System.nanoTime();
+
+				for(Arena arena : arenas)
+					arena.getScheduler().drainInbox();
+
+				long input = System.nanoTime();
+
+				for(Arena arena : arenas)
+					arena.getScheduler().update();
+
+				long logic = System.nanoTime();
+
+				for(Arena arena : arenas)
+					arena.flush();
+
+				long end = System.nanoTime();
+
+				tickStats.record(input - start, logic - input, end - logic);
+
+				//an overrun delays the next ticks instead of running the missed ones in a burst
+				nextTick = Math.max(nextTick + interval, end);
+			}
+			catch(Exception ex)
+			{
+				logger.log(Level.SEVERE, "Unexpected exception in " + thread.getName(), ex);
+				nextTick = System.nanoTime() + interval;
+			}
+
+			long toWait;
+			while((toWait = nextTick - System.nanoTime()) > 0 && !stop)
+				LockSupport.parkNanos(this, toWait);
+		}
+	}
+
+	private long getWaitingDelay()
+	{
+		long toWait = Long.MAX_VALUE;
+
+		for(Arena arena : arenas)
+			toWait = Math.min(toWait, arena.getScheduler().getWaitingDelay());
+
+		return toWait;
+	}
+
+	/**
+	 * Creates a scheduler run by this loop
+	 * @return a started scheduler using the monitor of this loop
+	 */
+	Scheduler createScheduler()
+	{
+		Scheduler scheduler = new Scheduler(logger, monitor, clock);
+		scheduler.start();
+		return scheduler;
+	}
+
+	void add(Arena arena)
+	{
+		arenas.add(arena);
+
+		synchronized(monitor)
+		{
+			monitor.notifyAll();
+		}
+	}
+
+	void remove(Arena arena)
+	{
+		arenas.remove(arena);
+	}
+
+	/**
+	 * @return amount of arenas run by this loop
+	 */
+	public int size()
+	{
+		return arenas.size();
+	}
+
+	/**
+	 * @return ticks per second, 0 if the loop isn't in fixed-rate mode
+	 */
+	public int getTickRate()
+	{
+		return tickRate;
+	}
+
+	/**
+	 * @return time spent by the ticks, null if the loop isn't in fixed-rate mode
+	 */
+	public TickStats getTickStats()
+	{
+		return tickStats;
+	}
+
+	public String getName()
+	{
+		return thread.getName();
+	}
+
+	public boolean isCurrentThread()
+	{
+		return Thread.currentThread() == thread;
+	}
+}
@@ -0,0 +1,133 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.shared.BufferPool;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.logging.Level;
+
+/**
+ * DatagramEngine using a non-blocking DatagramChannel and a Selector
+ * Datagrams are read in pooled direct buffers, nothing is allocated per datagram
+ * except the sender address
+ */
+public class ChannelDatagramEngine implements DatagramEngine
+{
+	private ServerConnection connection;
+
+	private DatagramChannel channel;
+	private Selector selector;
+	private BufferPool pool;
+
+	public ChannelDatagramEngine(ServerConnection connection, int port) throws IOException
+	{
+		this.connection = connection;
+		this.pool = new BufferPool(ServerConnection.MAX_DATAGRAM_SIZE, 16);
+
+		channel = DatagramChannel.open();
+		channel.configureBlocking(false);
+		channel.bind(port > 0 ? new InetSocketAddress(port) : null);
+
+		selector = Selector.open();
+		channel.register(selector, SelectionKey.OP_READ);
+	}
+
+	@Override
+	public void start()
+	{
+		new Thread(this::acceptInput, "TrapGame NIO receiver").start();
+	}
+
+	private void acceptInput()
+	{
+		while(isOpen()) try
+		{
+			selector.select();
+
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+			while(keys.hasNext())
+			{
+				SelectionKey key = keys.next();
+				keys.remove();
+
+				if(key.isValid() && key.isReadable())
+					readAll();
+			}
+		}
+		catch(ClosedChannelException | ClosedSelectorException ex)
+		{
+			break;
+		}
+		catch(IOException ex)
+		{
+			if(isOpen())
+				connection.getServer().getLogger().log(Level.WARNING, "Unexpected exception while receiving datagrams", ex);
+		}
+	}
+
+	/**
+	 * Reads every datagram waiting on the channel
+	 * @throws IOException if the channel fails
+	 */
+	private void readAll() throws IOException
+	{
+		ByteBuffer buffer = pool.acquire();
+
+		try
+		{
+			SocketAddress address;
+
+			while((address = channel.receive(buffer)) != null)
+			{
+				buffer.flip();
+				connection.receive(buffer, (InetSocketAddress)address);
+				buffer.clear();
+			}
+		}
+		finally
+		{
+			pool.release(buffer);
+		}
+	}
+
+	@Override
+	public void send(ByteBuffer data, InetSocketAddress address) throws IOException
+	{
+		channel.send(data, address);
+	}
+
+	@Override
+	public int getLocalPort()
+	{
+		return channel.socket().getLocalPort();
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close()
+	{
+		try
+		{
+			channel.close();
+			selector.close();
+		}
+		catch(IOException ex)
+		{
+			connection.getServer().getLogger().log(Level.WARNING, "Failed to close the datagram channel", ex);
+		}
+	}
+}
@@ -31,6 +31,8 @@ public class CommandManager
 		commands.add(new SuperUserCommand());
 		commands.add(new KickCommand());
 		commands.add(new IpCommand());
+		commands.add(new PerfCommand());
+		commands.add(new ArenaCommand());
 
 		if(server.isDebugMode())
 			commands.add(new DebugCommand());
@@ -22,6 +22,12 @@ public interface CommandSender
 	}
 
 	TrapGameServer getServer();
+
+	/**
+	 * @return arena the commands of this sender apply to
+	 */
+	Arena getArena();
+
 	InetAddress getIpAddress();
 	boolean isSuperUser();
 }
@@ -14,10 +14,12 @@ import java.util.logging.Level;
 public class ConsoleSender implements CommandSender
 {
 	public ServerConsole console;
+	private Arena arena;
 
 	public ConsoleSender(ServerConsole console)
 	{
 		this.console = console;
+		this.arena = null;
 	}
 
 	@Override
@@ -44,6 +46,25 @@ public class ConsoleSender implements CommandSender
 		return console.getServer();
 	}
 
+	/**
+	 * @return arena selected with /arena, or the default arena if it was closed
+	 */
+	@Override
+	public Arena getArena()
+	{
+		Arena arena = this.arena;
+
+		if(arena == null || !getServer().getArenas().contains(arena))
+			return getServer().getDefaultArena();
+
+		return arena;
+	}
+
+	public void setArena(Arena arena)
+	{
+		this.arena = arena;
+	}
+
 	@Override
 	public InetAddress getIpAddress()
 	{
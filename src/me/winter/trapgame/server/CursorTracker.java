@@ -0,0 +1,96 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.shared.packet.PacketOutCursorSnapshot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the latest cursor of each player and sends the ones that moved at a fixed rate
+ * Every player receives the same snapshot, including its own cursor which the client ignores,
+ * except players looking at a part of the board who only receive the cursors over it
+ *
+ * Only used from the thread of its arena
+ */
+public class CursorTracker
+{
+	private Arena arena;
+	private Set<Player> moved;
+
+	/**
+	 * @param arena arena of the players
+	 * @param rate amount of snapshots per second
+	 */
+	public CursorTracker(Arena arena, int rate)
+	{
+		this.arena = arena;
+		this.moved = new LinkedHashSet<>();
+
+		arena.getScheduler().addTask(this::flush, 1000 / Math.max(1, Math.min(rate, 1000)), true);
+	}
+
+	/**
+	 * Updates the cursor of a player, it will be sent with the next snapshot
+	 *
+	 * @param player player who moved its cursor
+	 * @param x position of the cursor relative to the board width
+	 * @param y position of the cursor relative to the board height
+	 */
+	public void move(Player player, float x, float y)
+	{
+		player.getInfo().setCursor(x, y);
+		moved.add(player);
+	}
+
+	/**
+	 * Sends a snapshot of the cursors that moved since the last one
+	 */
+	public void flush()
+	{
+		if(moved.isEmpty())
+			return;
+
+		PacketOutCursorSnapshot snapshot = new PacketOutCursorSnapshot(moved.size());
+		List<Player> receivers = new ArrayList<>();
+
+		for(Player player : moved)
+			if(arena.getPlayerRegistry().contains(player))
+				snapshot.add(player.getId(), player.getInfo().getCursorX(), player.getInfo().getCursorY());
+
+		for(Player player : arena.getPlayers())
+		{
+			if(player.getViewport() == null)
+				receivers.add(player);
+			else
+				sendVisible(player);
+		}
+
+		moved.clear();
+
+		if(!snapshot.isEmpty() && !receivers.isEmpty())
+			arena.getServer().getConnection().sendToAllLater(snapshot, receivers);
+	}
+
+	/**
+	 * Sends the cursors that moved over the viewport of a player
+	 * @param viewer player looking at a part of the board
+	 */
+	private void sendVisible(Player viewer)
+	{
+		PacketOutCursorSnapshot snapshot = new PacketOutCursorSnapshot(moved.size());
+
+		for(Player player : moved)
+		{
+			int x = (int)(player.getInfo().getCursorX() * arena.getBoardWidth());
+			int y = (int)(player.getInfo().getCursorY() * arena.getBoardHeight());
+
+			if(player != viewer && viewer.getViewport().contains(x, y) && arena.getPlayerRegistry().contains(player))
+				snapshot.add(player.getId(), player.getInfo().getCursorX(), player.getInfo().getCursorY());
+		}
+
+		if(!snapshot.isEmpty())
+			viewer.getConnection().sendPacketLater(snapshot);
+	}
+}
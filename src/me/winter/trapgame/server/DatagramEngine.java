@@ -0,0 +1,36 @@
+package me.winter.trapgame.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the way a ServerConnection receives and sends its datagrams
+ * Every datagram received is given to ServerConnection.receive on the engine's thread
+ *
+ * @see ChannelDatagramEngine
+ * @see SocketDatagramEngine
+ */
+public interface DatagramEngine
+{
+	/**
+	 * Starts receiving datagrams on a new thread
+	 */
+	void start();
+
+	/**
+	 * Sends the remaining bytes of a buffer as a single datagram
+	 * Can be called from any thread, the buffer position is moved
+	 *
+	 * @param data content of the datagram
+	 * @param address destination
+	 * @throws IOException if the datagram couldn't be sent
+	 */
+	void send(ByteBuffer data, InetSocketAddress address) throws IOException;
+
+	int getLocalPort();
+
+	boolean isOpen();
+
+	void close();
+}
@@ -0,0 +1,205 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.shared.JournalRecord;
+import me.winter.trapgame.shared.Scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The journal of a single game, appended from the thread of its arena
+ * Records are only queued there, the JournalWriter thread opens the file and writes them
+ *
+ * @see JournalRecord
+ */
+public class GameJournal
+{
+	private static final int BUFFER_SIZE = JournalRecord.SIZE * 256;
+
+	private JournalWriter writer;
+	private File file;
+	private Scheduler scheduler;
+	private long start, origin;
+
+	private Queue<JournalRecord> pending;
+	private AtomicBoolean scheduled;
+	private volatile boolean closed;
+
+	//only used by the writer thread
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	/**
+	 * @param writer thread writing the journal
+	 * @param file file to create
+	 * @param scheduler scheduler of the game, times of the records follow its clock
+	 */
+	GameJournal(JournalWriter writer, File file, Scheduler scheduler)
+	{
+		this.writer = writer;
+		this.file = file;
+		this.scheduler = scheduler;
+		this.start = System.currentTimeMillis();
+		this.origin = scheduler.getTimeMillis();
+		this.pending = new ConcurrentLinkedQueue<>();
+		this.scheduled = new AtomicBoolean(false);
+		this.closed = false;
+	}
+
+	public void boardSize(int width, int height)
+	{
+		append(JournalRecord.BOARD_SIZE, 0, width, height, 0);
+	}
+
+	public void join(Player player)
+	{
+		append(JournalRecord.JOIN, player.getId(), 0, 0, player.getInfo().getColor().getRGB());
+	}
+
+	public void leave(Player player)
+	{
+		append(JournalRecord.LEAVE, player.getId(), 0, 0, 0);
+	}
+
+	public void place(int owner, int x, int y)
+	{
+		append(JournalRecord.PLACE, owner, x, y, 0);
+	}
+
+	/**
+	 * @param owner owner of the fill
+	 * @param x x of the cell the fill started from
+	 * @param y y of the cell the fill started from
+	 * @param filled amount of cells filled
+	 */
+	public void fill(int owner, int x, int y, int filled)
+	{
+		append(JournalRecord.FILL, owner, x, y, filled);
+	}
+
+	/**
+	 * @param winner id of the winner, BoardModel.EMPTY if there is none
+	 * @param score score of the winner
+	 */
+	public void end(int winner, int score)
+	{
+		append(JournalRecord.END, winner, 0, 0, score);
+	}
+
+	/**
+	 * Stops the journal, the records already appended are still written
+	 */
+	public void close()
+	{
+		closed = true;
+		writer.schedule(this);
+	}
+
+	private void append(int type, int owner, int x, int y, int value)
+	{
+		if(closed)
+			return;
+
+		pending.offer(new JournalRecord(type, owner, x, y, (int)(scheduler.getTimeMillis() - origin), value));
+		writer.schedule(this);
+	}
+
+	/**
+	 * Writes the records appended so far, only called by the JournalWriter
+	 * @throws IOException if the file couldn't be written, the journal is then abandoned
+	 */
+	void write() throws IOException
+	{
+		if(channel == null)
+		{
+			//already closed
+			if(buffer != null)
+			{
+				pending.clear();
+				return;
+			}
+
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+			buffer.putInt(JournalRecord.MAGIC);
+			buffer.putShort((short)JournalRecord.VERSION);
+			buffer.putShort((short)JournalRecord.SIZE);
+			buffer.putLong(start);
+		}
+
+		JournalRecord record;
+
+		while((record = pending.poll()) != null)
+		{
+			if(buffer.remaining() < JournalRecord.SIZE)
+				flush();
+
+			record.write(buffer);
+		}
+
+		flush();
+
+		if(closed && pending.isEmpty())
+			abandon();
+	}
+
+	private void flush() throws IOException
+	{
+		buffer.flip();
+
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+
+	/**
+	 * Closes the file, only called by the JournalWriter
+	 */
+	void abandon()
+	{
+		closed = true;
+		pending.clear();
+
+		if(channel == null)
+			return;
+
+		try
+		{
+			channel.close();
+		}
+		catch(IOException ignored)
+		{
+
+		}
+
+		channel = null;
+	}
+
+	boolean hasPending()
+	{
+		return !pending.isEmpty() || closed && channel != null;
+	}
+
+	boolean markScheduled()
+	{
+		return scheduled.compareAndSet(false, true);
+	}
+
+	void unmarkScheduled()
+	{
+		scheduled.set(false);
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+}
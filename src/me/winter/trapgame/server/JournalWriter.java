@@ -0,0 +1,133 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Writes the game journals of every arena on a single thread,
+ * so appending a record never waits for the disk
+ *
+ * A journal with records waiting is put in line once, like connections in the OutboundPipeline
+ */
+public class JournalWriter
+{
+	private TrapGameServer server;
+	private File directory;
+	private boolean save;
+
+	private BlockingQueue<GameJournal> ready;
+	private Thread thread;
+	private volatile boolean stop;
+	private int nextId;
+
+	/**
+	 * @param server server running the games
+	 * @param directory directory of the journals
+	 * @param save false to never write any journal
+	 */
+	public JournalWriter(TrapGameServer server, File directory, boolean save)
+	{
+		this.server = server;
+		this.directory = directory;
+		this.save = save;
+		this.ready = new LinkedBlockingQueue<>();
+		this.stop = false;
+		this.nextId = 0;
+
+		if(save)
+		{
+			thread = new Thread(this::writeJournals, "TrapGame journal writer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Starts the journal of a new game
+	 * @param arena arena where the game is played
+	 * @return the journal or null if journals aren't saved
+	 */
+	public synchronized GameJournal open(Arena arena)
+	{
+		if(!save || stop)
+			return null;
+
+		return new GameJournal(this, new File(directory, arena.getName() + "_" + System.currentTimeMillis() + "_" + nextId++ + ".journal"), arena.getScheduler());
+	}
+
+	void schedule(GameJournal journal)
+	{
+		if(journal.markScheduled())
+			ready.offer(journal);
+	}
+
+	private void writeJournals()
+	{
+		try
+		{
+			FileUtil.createDirectory(directory);
+		}
+		catch(IOException ex)
+		{
+			server.getLogger().log(Level.SEVERE, "Couldn't create the journal directory, games won't be saved", ex);
+			save = false;
+		}
+
+		while(!stop || !ready.isEmpty()) try
+		{
+			GameJournal journal = ready.poll(100, TimeUnit.MILLISECONDS);
+
+			if(journal == null)
+				continue;
+
+			try
+			{
+				if(save)
+					journal.write();
+				else
+					journal.abandon();
+			}
+			catch(IOException ex)
+			{
+				server.getLogger().log(Level.WARNING, "Couldn't write the game journal " + journal.getFile().getName(), ex);
+				journal.abandon();
+			}
+
+			journal.unmarkScheduled();
+
+			if(journal.hasPending())
+				schedule(journal);
+		}
+		catch(InterruptedException ex)
+		{
+			break;
+		}
+	}
+
+	/**
+	 * Writes what was appended to the journals and stops
+	 * @param timeout maximum time to wait for the journals in milliseconds
+	 */
+	public void close(long timeout)
+	{
+		stop = true;
+
+		if(thread == null)
+			return;
+
+		try
+		{
+			thread.join(timeout);
+		}
+		catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package me.winter.trapgame.server;
+
+import me.winter.trapgame.shared.packet.PacketBatch;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * Sends the frames queued by every PlayerConnection of a server
+ * A small pool of threads takes the connections having pending frames in turn
+ * and sends at most a few frames of each before moving on to the next one,
+ * so a player receiving a lot of data can't starve the others
+ *
+ * Frames are packed in datagrams up to the MTU. With a flush interval or a tick rate,
+ * frames are held until the next flush so the ones queued meanwhile travel together
+ */
+public class OutboundPipeline
+{
+	private static final int DATAGRAMS_PER_TURN = 8;
+
+	private ServerConnection connection;
+
+	private BlockingQueue<PlayerConnection> ready;
+	private Thread[] workers;
+
+	private int mtu;
+	private boolean deferred;
+
+	/**
+	 * @param connection connection sending the datagrams
+	 * @param threads amount of sender threads
+	 * @param mtu maximum size of a datagram
+	 * @param deferred true if connections are only scheduled on flush
+	 */
+	public OutboundPipeline(ServerConnection connection, int threads, int mtu, boolean deferred)
+	{
+		this.connection = connection;
+		this.ready = new LinkedBlockingQueue<>();
+		this.workers = new Thread[threads > 0 ? threads : 1];
+		this.mtu = mtu;
+		this.deferred = deferred;
+	}
+
+	public void start()
+	{
+		for(int i = 0; i < workers.length; i++)
+		{
+			workers[i] = new Thread(this::sendOutput, "TrapGame sender #" + i);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Puts a connection in line to have its frames sent
+	 * Does nothing if the connection is already waiting its turn
+	 *
+	 * @param player connection with pending frames
+	 */
+	public void schedule(PlayerConnection player)
+	{
+		if(player.markScheduled())
+			ready.offer(player);
+	}
+
+	/**
+	 * Called when a frame is queued on a connection
+	 * Schedules it right away unless the pipeline waits for the next flush
+	 *
+	 * @param player connection with a new frame
+	 */
+	public void notifyQueued(PlayerConnection player)
+	{
+		if(!deferred)
+			schedule(player);
+	}
+
+	/**
+	 * Schedules every connection having frames waiting
+	 */
+	public void flush()
+	{
+		flush(connection.getServer().getPlayers());
+	}
+
+	/**
+	 * Schedules the connections of some players having frames waiting
+	 * @param players players to flush
+	 */
+	public void flush(Collection<Player> players)
+	{
+		for(Player player : players)
+			if(player.getConnection().hasPending())
+				schedule(player.getConnection());
+	}
+
+	private void sendOutput()
+	{
+		PacketBatch batch = new PacketBatch(mtu);
+
+		while(connection.isOpen()) try
+		{
+			PlayerConnection player = ready.take();
+
+			player.sendPending(batch, DATAGRAMS_PER_TURN);
+			player.unmarkScheduled();
+
+			if(player.hasPending())
+				schedule(player);
+		}
+		catch(InterruptedException ex)
+		{
+			break;
+		}
+		catch(Exception ex)
+		{
+			connection.getServer().getLogger().log(Level.WARNING, "Unexpected exception while sending output", ex);
+		}
+	}
+
+	public void close()
+	{
+		for(Thread worker : workers)
+			if(worker != null)
+				worker.interrupt();
+	}
+
+	public boolean isDeferred()
+	{
+		return deferred;
+	}
+
+	public int getPendingConnections()
+	{
+		return ready.size();
+	}
+}
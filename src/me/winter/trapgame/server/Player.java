@@ -16,14 +16,24 @@ import java.net.InetAddress;
 public class Player implements CommandSender
 {
 	private TrapGameServer server;
+	private volatile Arena arena;
 
 	private PlayerInfo info;
 	private PlayerConnection connection;
 	private boolean superUser;
+	private Rectangle viewport;
 
-	public Player(TrapGameServer server, PlayerInfo info, InetAddress address, int port)
+	/**
+	 * @param server server the player is connected to
+	 * @param arena arena where a place was reserved for the player
+	 * @param info infos of the player, its id is given by the arena
+	 * @param address address of the player
+	 * @param port port of the player
+	 */
+	public Player(TrapGameServer server, Arena arena, PlayerInfo info, InetAddress address, int port)
 	{
 		this.server = server;
+		this.arena = arena;
 		this.info = info;
 		this.connection = new PlayerConnection(this, address, port);
 		this.superUser = false;
@@ -53,7 +63,7 @@ public class Player implements CommandSender
 	@Override
 	public void chat(String message)
 	{
-		getServer().broadcast(getFormattedName(getName() + ":") + " " + message);
+		getArena().broadcast(getFormattedName(getName() + ":") + " " + message);
 	}
 
 	@Override
@@ -76,13 +86,12 @@ public class Player implements CommandSender
 
 	public void leave()
 	{
-		if(getServer().getPlayers().contains(this))
-			getServer().leave(this);
+		getServer().leave(this);
 	}
 
 	public void timeOut()
 	{
-		getServer().broadcast(Color.gray, getName() + " has timed out.");
+		getArena().broadcast(Color.gray, getName() + " has timed out.");
 		leave();
 	}
 
@@ -98,6 +107,17 @@ public class Player implements CommandSender
 		return server;
 	}
 
+	@Override
+	public Arena getArena()
+	{
+		return arena;
+	}
+
+	void setArena(Arena arena)
+	{
+		this.arena = arena;
+	}
+
 	public PlayerInfo getInfo()
 	{
 		return info;
@@ -108,6 +128,28 @@ public class Player implements CommandSender
 		return connection;
 	}
 
+	/**
+	 * @return cells of the board the player is looking at, null if it looks at the whole board
+	 */
+	public Rectangle getViewport()
+	{
+		return viewport;
+	}
+
+	public void setViewport(Rectangle viewport)
+	{
+		this.viewport = viewport;
+	}
+
+	/**
+	 * @param area cells of the board
+	 * @return true if the player sees at least one of these cells
+	 */
+	public boolean isViewing(Rectangle area)
+	{
+		return viewport == null || viewport.intersects(area);
+	}
+
 	@Override
 	public boolean isSuperUser()
 	{
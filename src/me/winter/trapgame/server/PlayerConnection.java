@@ -2,16 +2,16 @@ package me.winter.trapgame.server;
 
 import me.winter.trapgame.server.state.GameState;
 import me.winter.trapgame.server.state.State;
-import me.winter.trapgame.shared.Task;
 import me.winter.trapgame.shared.packet.*;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.DatagramPacket;
 import java.net.InetAddress;
-import java.util.ArrayList;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *
@@ -23,70 +23,79 @@ public class PlayerConnection
 
 	private InetAddress address;
 	private int port;
+	private InetSocketAddress socketAddress;
 
 	private long lastPacketReceived;
-	private java.util.List<DatagramPacket> toSend;
+	private Queue<ByteBuffer> toSend;
+	private AtomicBoolean scheduled;
 
 	public PlayerConnection(Player player, InetAddress address, int port)
 	{
-		toSend = new ArrayList<>();
+		toSend = new ConcurrentLinkedQueue<>();
+		scheduled = new AtomicBoolean(false);
 
 		this.player = player;
 		this.address = address;
 		this.port = port;
+		this.socketAddress = new InetSocketAddress(address, port);
 		keepAlive();
-
-		new Thread(this::sendOutput).start();
 	}
 
-	private void sendOutput()
+	/**
+	 * Sends some of the frames waiting in this connection's queue, packed in as few datagrams as possible
+	 * Only called by the OutboundPipeline
+	 *
+	 * @param batch batch owned by the calling sender thread
+	 * @param max maximum amount of datagrams to send
+	 */
+	void sendPending(PacketBatch batch, int max)
 	{
-		while(getPlayer().getServer().getConnection().isOpen())
+		ServerConnection connection = getPlayer().getServer().getConnection();
+
+		for(int i = 0; i < max && !toSend.isEmpty(); i++)
 		{
-			for(DatagramPacket packet : new ArrayList<>(toSend))
+			batch.clear();
+
+			ByteBuffer frame;
+			while((frame = toSend.peek()) != null && batch.add(frame))
+				toSend.poll();
+
+			//a frame larger than the batch is sent alone
+			if(batch.isEmpty())
+				frame = toSend.poll();
+
+			try
 			{
-				try
-				{
-					if(packet != null)
-						getPlayer().getServer().getConnection().getUdpSocket().send(packet);
-					toSend.remove(packet);
-				}
-				catch(IOException ex)
-				{
-					ex.printStackTrace(System.err);
-				}
+				connection.send(batch.isEmpty() ? frame.duplicate() : batch.toDatagram(), socketAddress);
 			}
-
-			synchronized(this)
+			catch(IOException ex)
 			{
-				try
-				{
-					wait();
-				}
-				catch(InterruptedException ex)
-				{
+				if(getPlayer().getServer().isDebugMode())
 					ex.printStackTrace(System.err);
-				}
 			}
 		}
 	}
 
-	public void sendPacketLater(Packet packet)
+	boolean hasPending()
 	{
-		try
-		{
+		return !toSend.isEmpty();
+	}
 
-			ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-			new DataOutputStream(byteStream).writeUTF(packet.getClass().getSimpleName());
-			packet.writeTo(byteStream);
+	boolean markScheduled()
+	{
+		return scheduled.compareAndSet(false, true);
+	}
 
-			DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
+	void unmarkScheduled()
+	{
+		scheduled.set(false);
+	}
 
-			synchronized(this)
-			{
-				toSend.add(data);
-				notify();
-			}
+	public void sendPacketLater(Packet packet)
+	{
+		try
+		{
+			sendFrameLater(PacketRegistry.encode(packet));
 		}
 		catch(Exception ex)
 		{
@@ -95,17 +104,23 @@ public class PlayerConnection
 		}
 	}
 
+	/**
+	 * Queues an already encoded packet to be sent by the OutboundPipeline
+	 * The frame can be shared between many connections, it is never modified
+	 *
+	 * @param frame encoded packet
+	 */
+	public void sendFrameLater(ByteBuffer frame)
+	{
+		toSend.offer(frame);
+		getPlayer().getServer().getConnection().getPipeline().notifyQueued(this);
+	}
+
 	public void sendPacket(Packet packet)
 	{
 		try
 		{
-			ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-			new DataOutputStream(byteStream).writeUTF(packet.getClass().getSimpleName());
-			packet.writeTo(byteStream);
-
-			DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
-
-			getPlayer().getServer().getConnection().getUdpSocket().send(data);
+			sendFrame(PacketRegistry.encode(packet));
 		}
 		catch(Exception ex)
 		{
@@ -114,19 +129,45 @@ public class PlayerConnection
 		}
 	}
 
+	/**
+	 * Sends an already encoded packet right away on the calling thread
+	 * The frame can be shared between many connections, it is never modified
+	 *
+	 * @param frame encoded packet
+	 */
+	public void sendFrame(ByteBuffer frame)
+	{
+		try
+		{
+			getPlayer().getServer().getConnection().send(frame.duplicate(), socketAddress);
+		}
+		catch(IOException ex)
+		{
+			if(getPlayer().getServer().isDebugMode())
+				ex.printStackTrace(System.err);
+		}
+	}
+
 	public void receivePacketLater(Packet packet)
 	{
-		getPlayer().getServer().getScheduler().addTask(new Task(0, false, () -> receivePacket(packet)));
+		getPlayer().getArena().execute(() -> receivePacket(packet));
 	}
 
 	public void keepAlive()
 	{
-		this.lastPacketReceived = System.currentTimeMillis();
+		this.lastPacketReceived = getPlayer().getServer().getScheduler().getTimeMillis();
 	}
 
 	public void receivePacket(Packet packet)
 	{
 		keepAlive();
+
+		Arena arena = getPlayer().getArena();
+
+		//received while moving to another arena, after it left the previous one
+		if(!arena.getPlayerRegistry().contains(getPlayer()))
+			return;
+
 		if(packet instanceof PacketInChat)
 		{
 			player.getServer().getCommandManager().execute(player, ((PacketInChat)packet).getMessage());
@@ -135,7 +176,7 @@ public class PlayerConnection
 
 		if(packet instanceof PacketInClick)
 		{
-			State state = player.getServer().getState();
+			State state = arena.getState();
 
 			if(!(state instanceof GameState))
 				return;
@@ -144,14 +185,12 @@ public class PlayerConnection
 
 			if(((GameState)state).place(getPlayer(), location))
 			{
-				getPlayer().getServer().getConnection().sendToAllLater(new PacketOutPlace(getPlayer().getId(), location));
+				arena.sendToViewersLater(new PacketOutPlace(getPlayer().getId(), location), new Rectangle(location.x, location.y, 1, 1));
 				((GameState)state).tryFilling(getPlayer(), location);
 			}
 			else
 			{
-				int id = ((GameState)state).getOwner(location) != null ? ((GameState)state).getOwner(location).getId() : -1;
-
-				getPlayer().getConnection().sendPacketLater(new PacketOutPlace(id, location));
+				getPlayer().getConnection().sendPacketLater(new PacketOutPlace(((GameState)state).getOwnerId(location), location));
 			}
 
 
@@ -160,11 +199,35 @@ public class PlayerConnection
 
 		if(packet instanceof PacketInCursorMove)
 		{
-			getPlayer().getInfo().setCursor(((PacketInCursorMove)packet).getCursorX(), ((PacketInCursorMove)packet).getCursorY());
+			arena.getCursorTracker().move(getPlayer(), ((PacketInCursorMove)packet).getCursorX(), ((PacketInCursorMove)packet).getCursorY());
+			return;
+		}
 
-			for(Player player : getPlayer().getServer().getPlayers())
-				if(player != getPlayer())
-					player.getConnection().sendPacketLater(new PacketOutCursorMove(getPlayer().getId(), ((PacketInCursorMove)packet).getCursorX(), ((PacketInCursorMove)packet).getCursorY()));
+		if(packet instanceof PacketInSnapshotRequest)
+		{
+			State state = arena.getState();
+
+			if(state instanceof GameState)
+				((GameState)state).resendSnapshot(getPlayer(), (PacketInSnapshotRequest)packet);
+			return;
+		}
+
+		if(packet instanceof PacketInViewport)
+		{
+			State state = arena.getState();
+			Rectangle viewport = ((PacketInViewport)packet).getViewport();
+
+			if(state instanceof GameState)
+			{
+				((GameState)state).view(getPlayer(), viewport);
+				return;
+			}
+
+			//outside of a game the board is emptied before the next one, nothing to catch up
+			viewport = arena.getViewport(viewport);
+
+			if(viewport != null)
+				getPlayer().setViewport(viewport);
 			return;
 		}
 
@@ -192,6 +255,14 @@ public class PlayerConnection
 		return port;
 	}
 
+	public InetSocketAddress getSocketAddress()
+	{
+		return socketAddress;
+	}
+
+	/**
+	 * @return time of the server scheduler when the last packet was received
+	 */
 	public long getLastPacketReceived()
 	{
 		return lastPacketReceived;
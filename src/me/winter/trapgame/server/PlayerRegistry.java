@@ -0,0 +1,171 @@
+package me.winter.trapgame.server;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the players connected to a server, indexed by address, name and id
+ * Lookups can be done from any thread while a single thread adds and removes players
+ *
+ * Player ids are recycled: the lowest id released is always given first
+ * While ids are retained, released ids are only recycled once retaining stops
+ *
+ * Ids are only unique inside an arena, the registry of the whole server doesn't index them
+ */
+public class PlayerRegistry
+{
+	private List<Player> players, view;
+	private Map<InetSocketAddress, Player> byAddress;
+	private Map<String, Player> byName;
+	private Map<Integer, Player> byId;
+
+	private PriorityQueue<Integer> freeIds;
+	private List<Integer> retainedIds;
+	private boolean retainingIds;
+	private int nextId;
+	private boolean indexingIds;
+
+	public PlayerRegistry()
+	{
+		this(true);
+	}
+
+	/**
+	 * @param indexingIds false to only index the players by address and name
+	 */
+	public PlayerRegistry(boolean indexingIds)
+	{
+		this.indexingIds = indexingIds;
+		this.players = new CopyOnWriteArrayList<>();
+		this.view = Collections.unmodifiableList(players);
+		this.byAddress = new ConcurrentHashMap<>();
+		this.byName = new ConcurrentHashMap<>();
+		this.byId = new ConcurrentHashMap<>();
+		this.freeIds = new PriorityQueue<>();
+		this.retainedIds = new ArrayList<>();
+		this.retainingIds = false;
+		this.nextId = 0;
+	}
+
+	public void add(Player player)
+	{
+		if(indexingIds)
+			byId.put(player.getId(), player);
+		byName.put(getKey(player.getName()), player);
+		byAddress.put(player.getConnection().getSocketAddress(), player);
+		players.add(player);
+	}
+
+	/**
+	 * Removes a player from the registry and releases its id
+	 * @param player player to remove
+	 * @return true if the player was in the registry
+	 */
+	public boolean remove(Player player)
+	{
+		if(!byAddress.remove(player.getConnection().getSocketAddress(), player))
+			return false;
+
+		byName.remove(getKey(player.getName()), player);
+		players.remove(player);
+
+		if(indexingIds)
+		{
+			byId.remove(player.getId(), player);
+			releaseId(player.getId());
+		}
+		return true;
+	}
+
+	public boolean contains(Player player)
+	{
+		return byAddress.get(player.getConnection().getSocketAddress()) == player;
+	}
+
+	public Player get(InetSocketAddress address)
+	{
+		return byAddress.get(address);
+	}
+
+	/**
+	 * Finds a player by its name, ignoring case
+	 * @param name name of the player
+	 * @return the player or null if there's none with that name
+	 */
+	public Player get(String name)
+	{
+		return byName.get(getKey(name));
+	}
+
+	public Player get(int id)
+	{
+		return byId.get(id);
+	}
+
+	/**
+	 * Takes the lowest player id not in use
+	 * @return an id to give to a new player
+	 */
+	public synchronized int allocateId()
+	{
+		Integer id = freeIds.poll();
+
+		if(id != null)
+			return id;
+
+		return nextId++;
+	}
+
+	/**
+	 * Gives back an id so it can be used by another player
+	 * @param id id no longer in use
+	 */
+	public synchronized void releaseId(int id)
+	{
+		if(retainingIds)
+			retainedIds.add(id);
+		else
+			freeIds.add(id);
+	}
+
+	/**
+	 * Holds back released ids so they can't be given to a new player, or gives them all back
+	 * @param retainingIds true to hold back the ids released from now on
+	 */
+	public synchronized void setRetainingIds(boolean retainingIds)
+	{
+		this.retainingIds = retainingIds;
+
+		if(!retainingIds)
+		{
+			freeIds.addAll(retainedIds);
+			retainedIds.clear();
+		}
+	}
+
+	/**
+	 * The players in the order they joined, safe to iterate from any thread
+	 * @return an unmodifiable view of the players
+	 */
+	public List<Player> getPlayers()
+	{
+		return view;
+	}
+
+	public int size()
+	{
+		return players.size();
+	}
+
+	private static String getKey(String name)
+	{
+		return name.toLowerCase(Locale.ROOT);
+	}
+}
@@ -3,204 +3,276 @@ package me.winter.trapgame.server;
 import me.winter.trapgame.shared.PlayerInfo;
 import me.winter.trapgame.shared.TrapGameVersion;
 import me.winter.trapgame.shared.packet.Packet;
+import me.winter.trapgame.shared.packet.PacketBatch;
 import me.winter.trapgame.shared.packet.PacketInJoin;
 import me.winter.trapgame.shared.packet.PacketInPing;
 import me.winter.trapgame.shared.packet.PacketOutKick;
 import me.winter.trapgame.shared.packet.PacketOutPong;
+import me.winter.trapgame.shared.packet.PacketRegistry;
 
+import java.awt.*;
 import java.io.*;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.SocketException;
-import java.util.ArrayList;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.logging.Level;
 
 /**
  * Represents a connection from the server side accepting new clients
- * Is an handler for a ServerSocket
+ * Is an handler for the datagrams received by its DatagramEngine
  *
  * Created by winter on 25/03/16.
  */
 public class ServerConnection
 {
+	public static final int MAX_DATAGRAM_SIZE = PacketRegistry.MAX_PACKET_SIZE;
+
 	private TrapGameServer server;
 
-	private DatagramSocket udpSocket;
-	private byte[] inputBuffer;
+	private DatagramEngine engine;
+	private OutboundPipeline pipeline;
 	private boolean acceptNewClients;
 
-	public ServerConnection(TrapGameServer server, int port) throws Exception
+	public ServerConnection(TrapGameServer server, ServerProperties properties) throws Exception
 	{
 		this.server = server;
 
-		inputBuffer = new byte[8 * 1024];
-		if(port > 0)
-			udpSocket = new DatagramSocket(port);
+		String networkMode = properties.getNetworkMode();
+		int port = properties.getPort();
+
+		if(networkMode.equalsIgnoreCase("socket"))
+			engine = new SocketDatagramEngine(this, port);
 		else
-			udpSocket = new DatagramSocket();
+			engine = new ChannelDatagramEngine(this, port);
+
+		int flushInterval = properties.getFlushInterval();
+		//in tick mode the arena loops flush their players at the end of each tick
+		pipeline = new OutboundPipeline(this, properties.getSendThreads(), properties.getMtu(), flushInterval > 0 || properties.getTickRate() > 0);
 
-		new Thread(this::acceptInput).start();
+		engine.start();
+		pipeline.start();
 
 		server.getScheduler().addTask(this::lookForAlive, 5000, true);
 
+		if(flushInterval > 0)
+			server.getScheduler().addTask(pipeline::flush, flushInterval, true);
+
 		acceptNewClients = true;
-		server.getLogger().info("The server is listening on " + udpSocket.getLocalPort());
+		server.getLogger().info("The server is listening on " + engine.getLocalPort() + " (" + networkMode + " mode)");
 	}
 
-	private void acceptInput()
+	/**
+	 * Handles a datagram received by the engine
+	 * The buffer is only valid during this call
+	 *
+	 * @param data content of the datagram
+	 * @param address address of the sender
+	 */
+	public void receive(ByteBuffer data, InetSocketAddress address)
 	{
-		String packetName = null;
-
-		while(isOpen()) try
+		try
 		{
-			packetName = null;
-			DatagramPacket bufPacket = new DatagramPacket(inputBuffer, inputBuffer.length);
-
-			udpSocket.receive(bufPacket);
-
-			if(!isOpen())
-				break;
-
-			Player player = getPlayer(bufPacket.getAddress(), bufPacket.getPort());
-
-			ByteArrayInputStream byteStream = new ByteArrayInputStream(inputBuffer);
+			Player player = getPlayer(address);
 
-			packetName = new DataInputStream(byteStream).readUTF();
-
-			if(packetName.equals("KeepAlive"))
+			if(PacketRegistry.isKeepAlive(data))
 			{
-				keepAlive(bufPacket.getAddress(), bufPacket.getPort());
+				keepAlive(address.getAddress(), address.getPort());
 				if(player != null)
 					player.getConnection().keepAlive();
-				continue;
+				return;
 			}
 
+			PacketBatch.forEachFrame(data, frame -> receive(frame, address, player));
+		}
+		catch(BufferUnderflowException | UTFDataFormatException ex)
+		{
+			server.getLogger().log(Level.INFO, "Received malformed datagram from " + address);
+		}
+		catch(Exception ex)
+		{
+			server.getLogger().log(Level.WARNING, "Unexpected exception", ex);
+		}
+	}
 
-			Packet packet = (Packet)Class.forName("me.winter.trapgame.shared.packet." + packetName).newInstance();
-			packet.readFrom(byteStream);
+	/**
+	 * Handles a single packet of a datagram
+	 *
+	 * @param frame buffer limited to the packet
+	 * @param address address of the sender
+	 * @param player player connected from that address, null for a guest
+	 * @throws IOException if the packet couldn't be read
+	 */
+	private void receive(ByteBuffer frame, InetSocketAddress address, Player player) throws IOException
+	{
+		int opcode = frame.get(frame.position()) & 0xFF;
+		Packet packet = PacketRegistry.read(frame);
 
-			//if(server.isDebugMode()) ab00se
-			//	System.out.println("Received " + packet.getClass().getSimpleName() + " from " + bufPacket.getAddress().toString() + " port: " + bufPacket.getPort());
+		if(packet == null)
+		{
+			if(server.isDebugMode())
+				server.getLogger().log(Level.INFO, "Received packet with unknown opcode " + opcode + " from " + address);
+			return;
+		}
 
-			if(player != null)
-			{
-				player.getConnection().receivePacketLater(packet);
-				continue;
-			}
+		//if(server.isDebugMode()) ab00se
+		//	System.out.println("Received " + packet.getClass().getSimpleName() + " from " + address);
 
-			if(packet instanceof PacketInPing)
-			{
-				sendPacketToGuest(getPong(), bufPacket.getAddress(), bufPacket.getPort());
-				continue;
-			}
+		if(player != null)
+		{
+			player.getConnection().receivePacketLater(packet);
+			return;
+		}
 
-			if(!(packet instanceof PacketInJoin) || !isAcceptingNewClients())
-				continue;
+		if(packet instanceof PacketInPing)
+		{
+			sendPacketToGuest(getPong(), address.getAddress(), address.getPort());
+			return;
+		}
 
-			String name = ((PacketInJoin)packet).getPlayerName();
+		if(!(packet instanceof PacketInJoin) || !isAcceptingNewClients())
+			return;
 
-			String invalidReason = getInvalidNameReason(name);
-			if(invalidReason != null)
-			{
-				sendPacketToGuest(new PacketOutKick(invalidReason), bufPacket.getAddress(), bufPacket.getPort());
-				continue;
-			}
+		String name = ((PacketInJoin)packet).getPlayerName();
+		String arena = ((PacketInJoin)packet).getArena();
 
-			while(!server.isAvailable(name))
-				name += "_";
+		String invalidReason = getInvalidNameReason(name);
+		if(invalidReason != null)
+		{
+			sendPacketToGuest(new PacketOutKick(invalidReason), address.getAddress(), address.getPort());
+			return;
+		}
 
-			int id = server.generateNewPlayerId();
+		server.getScheduler().execute(() -> join(name, arena, address));
+	}
 
-			PlayerInfo info = new PlayerInfo(id, name, server.getColor(id), server.getStatsManager().load(name), 0.5f, 0.5f);
+	/**
+	 * Creates the player of a guest that asked to join
+	 * Done on the server thread so names are given one player at a time,
+	 * its id is given by the arena it joins
+	 *
+	 * @param name name requested by the guest
+	 * @param arenaName arena requested by the guest, null to be placed in any
+	 * @param address address of the guest
+	 */
+	private void join(String name, String arenaName, InetSocketAddress address)
+	{
+		if(getPlayer(address) != null)
+			return;
 
-			server.join(new Player(server, info, bufPacket.getAddress(), bufPacket.getPort()));
+		while(!server.isAvailable(name))
+			name += "_";
 
-		}
-		catch(SocketException ex)
-		{
+		Arena arena = server.findArena(arenaName);
 
-		}
-		catch(ClassNotFoundException ex)
+		if(arena == null)
 		{
-			server.getLogger().log(Level.INFO, "Received packet with invalid name: " + packetName);
-		}
-		catch(Exception ex)
-		{
-			server.getLogger().log(Level.WARNING, "Unexpected exception", ex);
+			sendPacketToGuest(new PacketOutKick("Sorry, the server reached the maximum of players."), address.getAddress(), address.getPort());
+			return;
 		}
+
+		PlayerInfo info = new PlayerInfo(-1, name, Color.gray, server.getStatsManager().load(name), 0.5f, 0.5f);
+
+		server.join(new Player(server, arena, info, address.getAddress(), address.getPort()));
 	}
 
 	private void lookForAlive()
 	{
-		for(Player player : new ArrayList<>(server.getPlayers()))
+		for(Player player : server.getPlayers())
 		{
-			if(!server.getPlayers().contains(player))
+			if(!server.getPlayerRegistry().contains(player))
 				continue;
 
-			if(System.currentTimeMillis() - player.getConnection().getLastPacketReceived() > 30_000)
+			if(server.getScheduler().getTimeMillis() - player.getConnection().getLastPacketReceived() > 30_000)
 				player.timeOut();
 		}
 	}
 
 	public void keepAlive(InetAddress address, int port)
 	{
-		new Thread(() -> {
+		server.getExecutor().execute(() -> {
 			try
 			{
-				ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-				new DataOutputStream(byteStream).writeUTF("KeepAlive");
-
-				DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
-				getUdpSocket().send(data);
+				send(PacketRegistry.keepAlive(), new InetSocketAddress(address, port));
 			}
 			catch(Exception ex)
 			{
 				if(server.isDebugMode())
 					server.getLogger().log(Level.WARNING, "An exception occurred while sending data to keep alive a player", ex);
 			}
-		}).start();
+		});
 	}
 
 	public void sendPacketToGuest(Packet packet, InetAddress address, int port)
 	{
-		new Thread(() -> {
+		server.getExecutor().execute(() -> {
 			try
 			{
-				ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-				new DataOutputStream(byteStream).writeUTF(packet.getClass().getSimpleName());
-				packet.writeTo(byteStream);
-
-				DatagramPacket data = new DatagramPacket(byteStream.toByteArray(), byteStream.size(), address, port);
-
-				getUdpSocket().send(data);
+				send(PacketRegistry.encode(packet), new InetSocketAddress(address, port));
 			}
 			catch(Exception ex)
 			{
 				if(server.isDebugMode())
 					server.getLogger().log(Level.WARNING, "An exception occurred while sending data to guest", ex);
 			}
-		}).start();
+		});
+	}
+
+	/**
+	 * Sends a datagram right away on the calling thread
+	 *
+	 * @param data content of the datagram
+	 * @param address destination
+	 * @throws IOException if the engine failed to send it
+	 */
+	public void send(ByteBuffer data, InetSocketAddress address) throws IOException
+	{
+		engine.send(data, address);
 	}
 
-	public void sendToAll(Packet packet)
+	/**
+	 * Encodes a packet once and sends the same bytes to many players right away
+	 * @param packet packet to send
+	 * @param players players to send it to
+	 */
+	public void sendToAll(Packet packet, List<Player> players)
 	{
-		server.getPlayers().forEach(player -> player.getConnection().sendPacket(packet));
+		ByteBuffer frame = encode(packet);
+
+		if(frame != null)
+			players.forEach(player -> player.getConnection().sendFrame(frame));
 	}
 
-	public void sendToAllLater(Packet packet)
+	/**
+	 * Encodes a packet once and queues the same bytes for many players
+	 * @param packet packet to send
+	 * @param players players to send it to
+	 */
+	public void sendToAllLater(Packet packet, List<Player> players)
 	{
-		server.getPlayers().forEach(player -> player.getConnection().sendPacketLater(packet));
+		ByteBuffer frame = encode(packet);
+
+		if(frame != null)
+			players.forEach(player -> player.getConnection().sendFrameLater(frame));
 	}
 
-	public Player getPlayer(InetAddress address, int port)
+	private ByteBuffer encode(Packet packet)
 	{
-		for(Player player : server.getPlayers())
-			if(player.getConnection().getAddress().equals(address)
-			&& player.getConnection().getPort() == port)
-				return player;
+		try
+		{
+			return PacketRegistry.encode(packet);
+		}
+		catch(IOException ex)
+		{
+			server.getLogger().log(Level.WARNING, "Couldn't encode " + packet.getClass().getSimpleName(), ex);
+			return null;
+		}
+	}
 
-		return null;
+	public Player getPlayer(InetSocketAddress address)
+	{
+		return server.getPlayerRegistry().get(address);
 	}
 
 	/**
@@ -209,23 +281,34 @@ public class ServerConnection
 	 */
 	public PacketOutPong getPong()
 	{
-		return new PacketOutPong(TrapGameVersion.GAME_VERSION, server.getName(), server.getPlayers().size(), server.getMaxPlayers());
+		return new PacketOutPong(TrapGameVersion.GAME_VERSION, server.getName(), server.getPlayers().size(), server.getCapacity());
 	}
 
 	public boolean isOpen()
 	{
-		return !udpSocket.isClosed();
+		return engine.isOpen();
 	}
 
 	public synchronized void close()
 	{
-		getUdpSocket().close();
+		engine.close();
+		pipeline.close();
 		notify();
 	}
 
-	public DatagramSocket getUdpSocket()
+	public OutboundPipeline getPipeline()
+	{
+		return pipeline;
+	}
+
+	public int getLocalPort()
+	{
+		return engine.getLocalPort();
+	}
+
+	public TrapGameServer getServer()
 	{
-		return udpSocket;
+		return server;
 	}
 
 	public boolean isAcceptingNewClients()
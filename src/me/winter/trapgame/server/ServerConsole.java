@@ -1,6 +1,5 @@
 package me.winter.trapgame.server;
 
-import me.winter.trapgame.shared.Task;
 
 import java.io.IOException;
 import java.util.Scanner;
@@ -44,8 +43,7 @@ public class ServerConsole
 				{
 					String line = scanner.nextLine();
 
-					server.getScheduler().addTask(new Task(0, false,
-							() -> server.getCommandManager().execute(consoleSender, line)));
+					consoleSender.getArena().execute(() -> server.getCommandManager().execute(consoleSender, line));
 				}
 			}
 			catch(IOException ex)
@@ -1,5 +1,6 @@
 package me.winter.trapgame.server;
 
+import me.winter.trapgame.shared.packet.PacketBatch;
 import me.winter.trapgame.util.FileUtil;
 
 import java.io.*;
@@ -95,6 +96,248 @@ public class ServerProperties extends Properties
 		setProperty("port", port + "");
 	}
 
+	/**
+	 * Tells how the server receives its datagrams:
+	 * "nio" for a selector driven DatagramChannel or "socket" for the blocking DatagramSocket fallback
+	 * @return network mode, "nio" by default
+	 */
+	public String getNetworkMode()
+	{
+		return getProperty("network-mode", "nio");
+	}
+
+	public void setNetworkMode(String networkMode)
+	{
+		setProperty("network-mode", networkMode);
+	}
+
+	/**
+	 * Amount of threads sending the queued packets of all the players
+	 * @return number of sender threads, 1 by default
+	 */
+	public int getSendThreads()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("send-threads"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 1;
+		}
+	}
+
+	public void setSendThreads(int sendThreads)
+	{
+		setProperty("send-threads", sendThreads + "");
+	}
+
+	/**
+	 * Maximum size in bytes of the datagrams sent to players, packets are packed together up to that size
+	 * @return datagram size limit, 1400 by default
+	 */
+	public int getMtu()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("mtu"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return PacketBatch.DEFAULT_MTU;
+		}
+	}
+
+	public void setMtu(int mtu)
+	{
+		setProperty("mtu", mtu + "");
+	}
+
+	/**
+	 * Delay in milliseconds during which the packets queued for a player are held to be sent together
+	 * 0 sends them as soon as a sender thread is available
+	 * @return flush interval, 0 by default
+	 */
+	public int getFlushInterval()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("flush-interval"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 0;
+		}
+	}
+
+	public void setFlushInterval(int flushInterval)
+	{
+		setProperty("flush-interval", flushInterval + "");
+	}
+
+	/**
+	 * Amount of times per second the cursors that moved are sent to the players
+	 * @return cursor snapshot rate, 20 by default
+	 */
+	public int getCursorRate()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("cursor-rate"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 20;
+		}
+	}
+
+	public void setCursorRate(int cursorRate)
+	{
+		setProperty("cursor-rate", cursorRate + "");
+	}
+
+	/**
+	 * How the server runs short blocking jobs like answering guests and keep alives
+	 * "virtual" for a virtual thread per job when the JVM supports it, "pool" for a pool of platform threads
+	 * @return execution mode, "virtual" by default
+	 */
+	public String getExecutionMode()
+	{
+		return getProperty("execution-mode", "virtual");
+	}
+
+	public void setExecutionMode(String executionMode)
+	{
+		setProperty("execution-mode", executionMode);
+	}
+
+	/**
+	 * Amount of platform threads running jobs in pool mode
+	 * @return number of threads, 4 by default
+	 */
+	public int getExecutionThreads()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("execution-threads"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 4;
+		}
+	}
+
+	public void setExecutionThreads(int executionThreads)
+	{
+		setProperty("execution-threads", executionThreads + "");
+	}
+
+	/**
+	 * Maximum amount of jobs waiting (pool mode) or running (virtual mode), the ones above are dropped
+	 * @return job capacity, 1024 by default
+	 */
+	public int getExecutionCapacity()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("execution-capacity"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 1024;
+		}
+	}
+
+	public void setExecutionCapacity(int executionCapacity)
+	{
+		setProperty("execution-capacity", executionCapacity + "");
+	}
+
+	/**
+	 * Amount of arenas created when the server starts, they stay open even when empty
+	 * @return initial amount of arenas, 1 by default
+	 */
+	public int getArenas()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("arenas"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 1;
+		}
+	}
+
+	public void setArenas(int arenas)
+	{
+		setProperty("arenas", arenas + "");
+	}
+
+	/**
+	 * Maximum amount of arenas, more are created when the others are full and closed once empty
+	 * @return maximum amount of arenas, the initial amount by default
+	 */
+	public int getMaxArenas()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("max-arenas"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return getArenas();
+		}
+	}
+
+	public void setMaxArenas(int maxArenas)
+	{
+		setProperty("max-arenas", maxArenas + "");
+	}
+
+	/**
+	 * Amount of threads running the arenas, each thread runs many arenas
+	 * @return number of arena threads, the amount of processors by default
+	 */
+	public int getArenaThreads()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("arena-threads"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return Runtime.getRuntime().availableProcessors();
+		}
+	}
+
+	public void setArenaThreads(int arenaThreads)
+	{
+		setProperty("arena-threads", arenaThreads + "");
+	}
+
+	/**
+	 * Amount of fixed-rate ticks per second of the arena threads, each tick takes the packets received,
+	 * runs the game then sends the packets queued all at once. 0 runs the game as soon as something happens
+	 * @return tick rate, 0 by default
+	 */
+	public int getTickRate()
+	{
+		try
+		{
+			return Integer.parseInt(getProperty("tick-rate"));
+		}
+		catch(NumberFormatException ex)
+		{
+			return 0;
+		}
+	}
+
+	public void setTickRate(int tickRate)
+	{
+		setProperty("tick-rate", tickRate + "");
+	}
+
 	public int getMinPlayers()
 	{
 		try
@@ -232,4 +475,18 @@ public class ServerProperties extends Properties
 	{
 		setProperty("save-stats", saveStats + "");
 	}
+
+	/**
+	 * Tells if the events of each game are written to a journal in the journals directory
+	 * @return true to save game journals, false by default
+	 */
+	public boolean isSavingJournals()
+	{
+		return Boolean.parseBoolean(getProperty("save-journals"));
+	}
+
+	public void setSavingJournals(boolean saveJournals)
+	{
+		setProperty("save-journals", saveJournals + "");
+	}
 }
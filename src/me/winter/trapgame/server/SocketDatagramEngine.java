@@ -0,0 +1,106 @@
+package me.winter.trapgame.server;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+
+/**
+ * DatagramEngine using a blocking DatagramSocket on a receiving thread
+ * Fallback for systems where the channel engine misbehaves
+ */
+public class SocketDatagramEngine implements DatagramEngine
+{
+	private ServerConnection connection;
+
+	private DatagramSocket udpSocket;
+	private byte[] inputBuffer;
+
+	public SocketDatagramEngine(ServerConnection connection, int port) throws SocketException
+	{
+		this.connection = connection;
+		this.inputBuffer = new byte[ServerConnection.MAX_DATAGRAM_SIZE];
+
+		if(port > 0)
+			udpSocket = new DatagramSocket(port);
+		else
+			udpSocket = new DatagramSocket();
+	}
+
+	@Override
+	public void start()
+	{
+		new Thread(this::acceptInput, "TrapGame socket receiver").start();
+	}
+
+	private void acceptInput()
+	{
+		DatagramPacket bufPacket = new DatagramPacket(inputBuffer, inputBuffer.length);
+		ByteBuffer buffer = ByteBuffer.wrap(inputBuffer);
+
+		while(isOpen()) try
+		{
+			bufPacket.setLength(inputBuffer.length);
+			udpSocket.receive(bufPacket);
+
+			if(!isOpen())
+				break;
+
+			buffer.clear();
+			buffer.limit(bufPacket.getLength());
+
+			connection.receive(buffer, new InetSocketAddress(bufPacket.getAddress(), bufPacket.getPort()));
+		}
+		catch(SocketException ex)
+		{
+
+		}
+		catch(IOException ex)
+		{
+			connection.getServer().getLogger().log(Level.WARNING, "Unexpected exception while receiving datagrams", ex);
+		}
+	}
+
+	@Override
+	public void send(ByteBuffer data, InetSocketAddress address) throws IOException
+	{
+		byte[] bytes;
+		int offset, length = data.remaining();
+
+		if(data.hasArray())
+		{
+			bytes = data.array();
+			offset = data.arrayOffset() + data.position();
+		}
+		else
+		{
+			bytes = new byte[length];
+			offset = 0;
+			data.duplicate().get(bytes);
+		}
+
+		udpSocket.send(new DatagramPacket(bytes, offset, length, address));
+		data.position(data.limit());
+	}
+
+	@Override
+	public int getLocalPort()
+	{
+		return udpSocket.getLocalPort();
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return !udpSocket.isClosed();
+	}
+
+	@Override
+	public void close()
+	{
+		udpSocket.close();
+	}
+}
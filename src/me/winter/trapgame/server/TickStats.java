@@ -0,0 +1,109 @@
+package me.winter.trapgame.server;
+
+/**
+ * Time spent by the ticks of an ArenaLoop in fixed-rate mode
+ *
+ * Each tick has three phases: input (work received from the network), logic (tasks due)
+ * and output (sending the frames queued during the tick). A tick taking longer than
+ * the tick interval is an overrun, the next one starts late.
+ */
+public class TickStats
+{
+	private long interval;
+
+	private long ticks, overruns;
+	private long totalTime, maxTime;
+	private long inputTime, logicTime, outputTime;
+
+	/**
+	 * @param interval length of a tick in nanoseconds
+	 */
+	public TickStats(long interval)
+	{
+		this.interval = interval;
+	}
+
+	/**
+	 * Records a tick, durations in nanoseconds
+	 *
+	 * @param input time spent on input
+	 * @param logic time spent on logic
+	 * @param output time spent on output
+	 */
+	public synchronized void record(long input, long logic, long output)
+	{
+		long time = input + logic + output;
+
+		ticks++;
+		totalTime += time;
+		maxTime = Math.max(maxTime, time);
+		inputTime += input;
+		logicTime += logic;
+		outputTime += output;
+
+		if(time > interval)
+			overruns++;
+	}
+
+	public synchronized void reset()
+	{
+		ticks = 0;
+		overruns = 0;
+		totalTime = 0;
+		maxTime = 0;
+		inputTime = 0;
+		logicTime = 0;
+		outputTime = 0;
+	}
+
+	/**
+	 * @return part of the tick interval left unused on average, between 0 and 1
+	 */
+	public synchronized double getHeadroom()
+	{
+		if(ticks == 0)
+			return 1;
+
+		return Math.max(0, 1 - (double)totalTime / ticks / interval);
+	}
+
+	public long getInterval()
+	{
+		return interval;
+	}
+
+	public synchronized long getTicks()
+	{
+		return ticks;
+	}
+
+	public synchronized long getOverruns()
+	{
+		return overruns;
+	}
+
+	public synchronized long getAverageTime()
+	{
+		return ticks == 0 ? 0 : totalTime / ticks;
+	}
+
+	public synchronized long getMaxTime()
+	{
+		return maxTime;
+	}
+
+	public synchronized long getAverageInputTime()
+	{
+		return ticks == 0 ? 0 : inputTime / ticks;
+	}
+
+	public synchronized long getAverageLogicTime()
+	{
+		return ticks == 0 ? 0 : logicTime / ticks;
+	}
+
+	public synchronized long getAverageOutputTime()
+	{
+		return ticks == 0 ? 0 : outputTime / ticks;
+	}
+}
@@ -1,29 +1,29 @@
 package me.winter.trapgame.server;
 
-import me.winter.trapgame.client.TrapGameClient;
 import me.winter.trapgame.server.state.GameState;
-import me.winter.trapgame.server.state.StandbyState;
-import me.winter.trapgame.server.state.State;
-import me.winter.trapgame.shared.PlayerInfo;
+import me.winter.trapgame.shared.Clock;
 import me.winter.trapgame.shared.Scheduler;
 import me.winter.trapgame.shared.TrapGameLogFormatter;
-import me.winter.trapgame.shared.packet.PacketOutBoardSize;
-import me.winter.trapgame.shared.packet.PacketOutJoin;
-import me.winter.trapgame.shared.packet.PacketOutLeave;
-import me.winter.trapgame.shared.packet.PacketOutWelcome;
+import me.winter.trapgame.shared.execution.ExecutionStrategy;
+import me.winter.trapgame.shared.packet.PacketOutChat;
 import me.winter.trapgame.util.FileUtil;
+import me.winter.trapgame.util.StringUtil;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.*;
 
 /**
  * Represents a server of TrapGame
- * Has a ServerConnection, a list of players and the state of the game
+ * Has a ServerConnection, the players connected and the arenas they play in
+ * Each arena runs on one of a fixed amount of ArenaLoop threads, the server itself
+ * only accepts players and runs the connection tasks on the thread calling start()
  * This class also has a static main() method to launch the game
  *
  * Created by winter on 25/03/16.
@@ -123,26 +123,42 @@ public class TrapGameServer
 
 	private Logger logger;
 
+	private ServerProperties properties;
 	private Scheduler scheduler;
-	private State state;
-	private List<Player> players;
+	private ExecutionStrategy executor;
+	private PlayerRegistry players;
+	private ArenaLoop[] loops;
+	private List<Arena> arenas, arenasView;
+	private int initialArenas, maxArenas, nextArena;
 	private ServerConnection connection;
 	private StatsManager statsManager;
+	private JournalWriter journalWriter;
 	private CommandManager commandManager;
 	private ServerConsole console;
 
 
 	private String name, welcomeMessage;
 	private String superPassword;
-	private int minPlayers, maxPlayers;
-	private int boardWidth, boardHeight;
-	private int waitingTimer;
 	private boolean debugMode;
 	private long startTimestamp;
 
 	private boolean stop;
 
 	public TrapGameServer(ServerProperties properties, Logger logger) throws Exception
+	{
+		this(properties, logger, Clock.SYSTEM);
+	}
+
+	/**
+	 * Creates a server whose timers, countdowns and timeouts follow a clock
+	 * With a ManualClock, games can be simulated faster than real time
+	 *
+	 * @param properties properties of the server
+	 * @param logger logger of the server
+	 * @param clock source of time of the schedulers of the server and its arenas
+	 * @throws Exception if the server can't listen
+	 */
+	public TrapGameServer(ServerProperties properties, Logger logger, Clock clock) throws Exception
 	{
 		this.logger = logger;
 
@@ -182,11 +198,30 @@ public class TrapGameServer
 		}
 		setDebugMode(properties.isDebugMode());
 
-		scheduler = new Scheduler(logger);
-		state = new StandbyState(this);
-		players = new ArrayList<>();
-		connection = new ServerConnection(this, properties.getPort());
+		this.properties = properties;
+		scheduler = new Scheduler(logger, null, clock);
+		executor = ExecutionStrategy.create(properties.getExecutionMode(), properties.getExecutionThreads(), properties.getExecutionCapacity(), "TrapGame worker");
+		players = new PlayerRegistry(false);
+		connection = new ServerConnection(this, properties);
+
+		initialArenas = Math.max(1, properties.getArenas());
+		maxArenas = Math.max(initialArenas, properties.getMaxArenas());
+		loops = new ArenaLoop[Math.max(1, Math.min(properties.getArenaThreads(), maxArenas))];
+		arenas = new CopyOnWriteArrayList<>();
+		arenasView = Collections.unmodifiableList(arenas);
+		nextArena = 1;
+
+		for(int i = 0; i < loops.length; i++)
+		{
+			loops[i] = new ArenaLoop(logger, "TrapGame arena loop " + (i + 1), properties.getTickRate(), clock);
+			loops[i].start();
+		}
+
+		for(int i = 0; i < initialArenas; i++)
+			createArena();
+
 		statsManager = new StatsManager(this, new File("stats"), properties.isSavingStats());
+		journalWriter = new JournalWriter(this, new File("journals"), properties.isSavingJournals());
 		commandManager = new CommandManager(this);
 
 		if(properties.enableConsole())
@@ -199,10 +234,6 @@ public class TrapGameServer
 		this.name = properties.getServerName();
 		this.welcomeMessage = properties.getWelcomeMessage();
 		this.superPassword = properties.getSuperPassword();
-		setMaxPlayers(properties.getMaxPlayers());
-		setMinPlayers(properties.getMinPlayers());
-		setBoardSize(properties.getBoardWidth(), properties.getBoardHeight());
-		this.waitingTimer = properties.getTimer();
 	}
 
 	public synchronized void start()
@@ -213,86 +244,160 @@ public class TrapGameServer
 		getScheduler().loop(() -> !stop);
 	}
 
+	/**
+	 * Adds a player who reserved a place in its arena, then lets the arena make it join
+	 * Done on the server thread so names are given one player at a time
+	 *
+	 * @param player player joining
+	 */
 	public void join(Player player)
 	{
-		if(getPlayers().size() >= getMaxPlayers())
-		{
-			player.kick("Sorry, the server reached the maximum of players.");
-			return;
-		}
+		Arena arena = player.getArena();
 
-		getConnection().sendToAllLater(new PacketOutJoin(player.getInfo()));
-		getPlayers().add(player);
-		player.getConnection().sendPacketLater(new PacketOutWelcome(player.getId(), getPlayersInfo(), boardWidth, boardHeight));
-		broadcast(player.getFormattedName() + " has joined the game.");
-		player.sendMessage(getWelcomeMessage().replace("${SERVER}", getName()).replace("${PLAYER}", player.getName()));
-		getState().join(player);
+		players.add(player);
+		arena.execute(() -> {
+			arena.join(player);
+			player.sendMessage(getWelcomeMessage().replace("${SERVER}", getName()).replace("${PLAYER}", player.getName()));
+		});
 	}
 
 	public void leave(Player player)
 	{
+		if(!players.remove(player))
+			return;
+
 		getStatsManager().save(player.getName(), player.getInfo().getStats());
-		getPlayers().remove(player);
-		broadcast(player.getFormattedName() + " has left the game.");
-		getState().leave(player);
-		getConnection().sendToAllLater(new PacketOutLeave(player.getId()));
+
+		Arena arena = player.getArena();
+		arena.execute(() -> {
+			arena.leave(player);
+			closeIfUnused(arena);
+		});
 	}
 
-	public void stop()
+	/**
+	 * Moves a player to another arena, on the thread of its current arena
+	 *
+	 * @param player player to move
+	 * @param target arena to go to
+	 * @return false if the target arena is full
+	 */
+	public boolean move(Player player, Arena target)
 	{
-		getConnection().setAcceptingNewClients(false);
+		Arena arena = player.getArena();
 
-		for(Player player : new ArrayList<>(players))
-			player.kick("Server is closing.");
+		if(arena == target || !target.reserve())
+			return false;
 
-		getConnection().close();
-		stop = true;
-		getScheduler().notify();
+		//packets received from now on are handled by the new arena, after the join
+		player.setArena(target);
+		arena.leave(player);
+		closeIfUnused(arena);
+		target.execute(() -> target.join(player));
+		return true;
 	}
 
-	public boolean isStopped()
+	/**
+	 * Finds an arena for a new player and holds a place in it
+	 * The requested arena is used if it has room, otherwise the fullest arena not playing
+	 * is preferred so matches can start. A new arena is created when all are full.
+	 *
+	 * @param requested name of the arena the player asked for, can be null
+	 * @return the arena where a place was reserved, null if the server is full
+	 */
+	public Arena findArena(String requested)
 	{
-		return stop;
-	}
+		Arena arena = requested != null ? getArena(requested) : null;
 
-	public boolean isAvailable(String playerName)
-	{
-		return getPlayer(playerName) == null;
+		if(arena != null && arena.reserve())
+			return arena;
+
+		for(int pass = 0; pass < 2; pass++)
+		{
+			Arena best = null;
+
+			for(Arena current : arenas)
+			{
+				if(pass == 0 && current.getState() instanceof GameState)
+					continue;
+
+				if(current.getPopulation() < current.getMaxPlayers() && (best == null || current.getPopulation() > best.getPopulation()))
+					best = current;
+			}
+
+			if(best != null && best.reserve())
+				return best;
+		}
+
+		if(arenas.size() >= maxArenas)
+			return null;
+
+		arena = createArena();
+		return arena.reserve() ? arena : null;
 	}
 
-	public int generateNewPlayerId()
+	/**
+	 * Creates an arena run by the loop having the least arenas
+	 * @return the new arena
+	 */
+	private synchronized Arena createArena()
 	{
-		int id = 0;
+		ArenaLoop loop = loops[0];
 
-		while(!isAvailable(id))
-			id++;
+		for(ArenaLoop current : loops)
+			if(current.size() < loop.size())
+				loop = current;
 
-		return id;
+		Arena arena = new Arena(this, "arena" + nextArena++, loop, properties);
+		arenas.add(arena);
+		return arena;
 	}
 
-	private boolean isAvailable(int playerId)
+	/**
+	 * Closes an arena created for extra players once it's empty
+	 * @param arena arena a player left
+	 */
+	private void closeIfUnused(Arena arena)
 	{
-		for(Player player : getPlayers())
-			if(player.getId() == playerId)
-				return false;
-		return true;
+		if(arenas.indexOf(arena) < initialArenas || !arena.tryClose())
+			return;
+
+		arenas.remove(arena);
+		arena.close();
 	}
 
-	public Player getPlayer(String name)
+	public void stop()
 	{
+		getConnection().setAcceptingNewClients(false);
+
 		for(Player player : getPlayers())
-			if(player.getName().equalsIgnoreCase(name))
-				return player;
-		return null;
+			player.kick("Server is closing.");
+
+		getConnection().close();
+		executor.shutdown();
+
+		for(ArenaLoop loop : loops)
+			loop.stop();
+
+		journalWriter.close(1000);
+
+		stop = true;
+		getScheduler().wakeUp();
 	}
 
-	public List<PlayerInfo> getPlayersInfo()
+	public boolean isStopped()
 	{
-		List<PlayerInfo> players = new ArrayList<>();
+		return stop;
+	}
 
-		getPlayers().forEach(player -> players.add(player.getInfo()));
+	public boolean isAvailable(String playerName)
+	{
+		return getPlayer(playerName) == null;
+	}
 
-		return players;
+	public Player getPlayer(String name)
+	{
+		return players.get(name);
 	}
 
 	public Color getColor(int id)
@@ -300,20 +405,29 @@ public class TrapGameServer
 		return COLORS[id % COLORS.length];
 	}
 
+	/**
+	 * Sends a message to the players of every arena
+	 * @param message message to send
+	 */
 	public void broadcast(String message)
 	{
-		if(getConsole() != null && getConsole().getConsoleSender() != null)
-			getConsole().getConsoleSender().sendMessage(message);
-
-		getPlayers().forEach(player -> player.sendMessage(message));
+		log(message);
+		getConnection().sendToAllLater(new PacketOutChat(message), getPlayers());
 	}
 
 	public void broadcast(Color color, String message)
+	{
+		broadcast("<span style=\"color: " + StringUtil.toCSS(color) + ";\">" + message + "</span>");
+	}
+
+	/**
+	 * Shows a chat message in the console, if there's one
+	 * @param message message to show
+	 */
+	public void log(String message)
 	{
 		if(getConsole() != null && getConsole().getConsoleSender() != null)
 			getConsole().getConsoleSender().sendMessage(message);
-
-		getPlayers().forEach(player -> player.sendMessage(color, message));
 	}
 
 	public Scheduler getScheduler()
@@ -321,17 +435,57 @@ public class TrapGameServer
 		return scheduler;
 	}
 
-	public State getState()
+	/**
+	 * @return players of every arena
+	 */
+	public List<Player> getPlayers()
 	{
-		return state;
+		return players.getPlayers();
 	}
 
-	public void setState(State state)
+	public List<Arena> getArenas()
 	{
-		this.state = state;
+		return arenasView;
 	}
 
-	public List<Player> getPlayers()
+	/**
+	 * @return threads running the arenas
+	 */
+	public List<ArenaLoop> getArenaLoops()
+	{
+		return Collections.unmodifiableList(Arrays.asList(loops));
+	}
+
+	/**
+	 * @param name name of an arena, ignoring case
+	 * @return the arena or null if there's none with that name
+	 */
+	public Arena getArena(String name)
+	{
+		for(Arena arena : arenas)
+			if(arena.getName().equalsIgnoreCase(name))
+				return arena;
+
+		return null;
+	}
+
+	/**
+	 * @return the first arena, which is never closed
+	 */
+	public Arena getDefaultArena()
+	{
+		return arenas.get(0);
+	}
+
+	/**
+	 * @return maximum amount of players in all the arenas the server can create
+	 */
+	public int getCapacity()
+	{
+		return maxArenas * properties.getMaxPlayers();
+	}
+
+	public PlayerRegistry getPlayerRegistry()
 	{
 		return players;
 	}
@@ -341,11 +495,25 @@ public class TrapGameServer
 		return connection;
 	}
 
+	/**
+	 * Runs the short blocking jobs of the server, like answering guests
+	 * @return execution strategy of the server
+	 */
+	public ExecutionStrategy getExecutor()
+	{
+		return executor;
+	}
+
 	public StatsManager getStatsManager()
 	{
 		return statsManager;
 	}
 
+	public JournalWriter getJournalWriter()
+	{
+		return journalWriter;
+	}
+
 	public CommandManager getCommandManager()
 	{
 		return commandManager;
@@ -386,57 +554,6 @@ public class TrapGameServer
 		return superPassword;
 	}
 
-	public int getMinPlayers()
-	{
-		return minPlayers;
-	}
-
-	public void setMinPlayers(int minPlayers)
-	{
-		this.minPlayers = minPlayers;
-	}
-
-	public int getMaxPlayers()
-	{
-		return maxPlayers;
-	}
-
-	public void setMaxPlayers(int maxPlayers)
-	{
-		this.maxPlayers = maxPlayers;
-	}
-
-	public void setBoardSize(int boardWidth, int boardHeight)
-	{
-		this.boardWidth = boardWidth > 0 ? boardWidth : 1;
-		this.boardHeight = boardHeight > 0 ? boardHeight : 1;
-
-		getConnection().sendToAll(new PacketOutBoardSize(this.boardWidth, this.boardHeight));
-
-		if(getState() instanceof GameState)
-			((GameState)getState()).resize();
-	}
-
-	public int getBoardHeight()
-	{
-		return boardHeight;
-	}
-
-	public int getBoardWidth()
-	{
-		return boardWidth;
-	}
-
-	public int getWaitingTimer()
-	{
-		return waitingTimer;
-	}
-
-	public void setWaitingTimer(int waitingTimer)
-	{
-		this.waitingTimer = waitingTimer;
-	}
-
 	public boolean isDebugMode()
 	{
 		return debugMode;
@@ -38,7 +38,7 @@ public class WebServerListUpdater extends Task //no longer used
 	@Override
 	public void run()
 	{
-		addressList.forEach(x -> new Thread(() -> update(x)).start());
+		addressList.forEach(x -> server.getExecutor().execute(() -> update(x)));
 	}
 
 	private void update(String serverAddr)
@@ -56,10 +56,10 @@ public class WebServerListUpdater extends Task //no longer used
 
 			String string = "action=update" +
 					"&name=" + server.getName() +
-					"&port=" + server.getConnection().getUdpSocket().getLocalPort() +
+					"&port=" + server.getConnection().getLocalPort() +
 					"&lanip=" + InetAddress.getLocalHost().getHostAddress() +
 					"&players=" + server.getPlayers().size() +
-					"&slots=" + server.getMaxPlayers();
+					"&slots=" + server.getCapacity();
 
 			writer.write(string);
 
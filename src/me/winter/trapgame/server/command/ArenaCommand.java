@@ -0,0 +1,86 @@
+package me.winter.trapgame.server.command;
+
+import me.winter.trapgame.server.Arena;
+import me.winter.trapgame.server.CommandSender;
+import me.winter.trapgame.server.ConsoleSender;
+import me.winter.trapgame.server.Player;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lists the arenas of the server or goes to another one
+ * The console only selects the arena its commands apply to
+ */
+public class ArenaCommand implements Command
+{
+	@Override
+	public String getName()
+	{
+		return "arena";
+	}
+
+	@Override
+	public List<String> getAliases()
+	{
+		return Arrays.asList("arenas", "room", "match");
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "Lists the arenas or moves you to another one.";
+	}
+
+	@Override
+	public String getUsage()
+	{
+		return "/arena [name]";
+	}
+
+	@Override
+	public void execute(CommandSender sender, String label, String[] arguments)
+	{
+		if(arguments.length == 0)
+		{
+			StringBuilder message = new StringBuilder("---[ Arenas ]---");
+
+			for(Arena arena : sender.getServer().getArenas())
+				message.append("\n").append(arena.getName())
+						.append(arena == sender.getArena() ? " (here)" : "")
+						.append(": ").append(arena.getPlayers().size()).append("/").append(arena.getMaxPlayers())
+						.append(" players, ").append(arena.getState().getClass().getSimpleName().replace("State", "").toLowerCase());
+
+			sender.sendMessage(message.toString());
+			return;
+		}
+
+		Arena arena = sender.getServer().getArena(arguments[0]);
+
+		if(arena == null)
+		{
+			sender.sendMessage("That arena couldn't be found.");
+			sender.sendMessage("Usage: " + getUsage());
+			return;
+		}
+
+		if(sender instanceof ConsoleSender)
+		{
+			((ConsoleSender)sender).setArena(arena);
+			sender.sendMessage("Commands now apply to " + arena.getName() + ".");
+			return;
+		}
+
+		if(!(sender instanceof Player) || arena == sender.getArena())
+			return;
+
+		if(!sender.getServer().move((Player)sender, arena))
+			sender.sendMessage("That arena is full.");
+	}
+
+	@Override
+	public boolean needSuper()
+	{
+		return false;
+	}
+}
@@ -50,7 +50,7 @@ public class BoardSizeCommand implements Command
 			int width = Integer.parseInt(arguments[0]);
 			int height = arguments.length == 2 ? Integer.parseInt(arguments[1]) : width;
 
-			player.getServer().setBoardSize(width, height);
+			player.getArena().setBoardSize(width, height);
 		}
 		catch(NumberFormatException ex)
 		{
@@ -50,10 +50,10 @@ public class DebugCommand implements Command
 
 		if(arguments[0].equalsIgnoreCase("silentplace"))
 		{
-			if(!(sender.getServer().getState() instanceof GameState))
+			if(!(sender.getArena().getState() instanceof GameState))
 				return;
 
-			((GameState)sender.getServer().getState()).place((Player)sender, new Point(Integer.parseInt(arguments[1]), Integer.parseInt(arguments[2])));
+			((GameState)sender.getArena().getState()).place((Player)sender, new Point(Integer.parseInt(arguments[1]), Integer.parseInt(arguments[2])));
 			sender.sendMessage("Success");
 			return;
 
@@ -0,0 +1,94 @@
+package me.winter.trapgame.server.command;
+
+import me.winter.trapgame.server.ArenaLoop;
+import me.winter.trapgame.server.CommandSender;
+import me.winter.trapgame.server.TickStats;
+import me.winter.trapgame.shared.execution.ExecutionStrategy;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shows the load of the threads doing the network work of the server and how many arenas they run
+ * In tick mode, also shows the time spent by the ticks of each arena thread
+ */
+public class PerfCommand implements Command
+{
+	@Override
+	public String getName()
+	{
+		return "perf";
+	}
+
+	@Override
+	public List<String> getAliases()
+	{
+		return Arrays.asList("performance", "load");
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "Shows the load of the network workers of the server.";
+	}
+
+	@Override
+	public String getUsage()
+	{
+		return "/perf [reset]";
+	}
+
+	@Override
+	public void execute(CommandSender sender, String label, String[] arguments)
+	{
+		ExecutionStrategy executor = sender.getServer().getExecutor();
+
+		if(arguments.length > 0 && arguments[0].equalsIgnoreCase("reset"))
+		{
+			for(ArenaLoop loop : sender.getServer().getArenaLoops())
+				if(loop.getTickStats() != null)
+					loop.getTickStats().reset();
+
+			sender.sendMessage("Tick statistics reset.");
+			return;
+		}
+
+		StringBuilder message = new StringBuilder("---[ Performance ]---\n" +
+				"Workers: " + executor.getName() + "\n" +
+				"Queued jobs: " + executor.getQueueDepth() + "\n" +
+				"Rejected jobs: " + executor.getRejectedCount() + "\n" +
+				"Players waiting to send: " + sender.getServer().getConnection().getPipeline().getPendingConnections() + "\n" +
+				"Arenas: " + sender.getServer().getArenas().size() + " (" + sender.getServer().getPlayers().size() + " players)");
+
+		for(ArenaLoop loop : sender.getServer().getArenaLoops())
+		{
+			TickStats stats = loop.getTickStats();
+
+			if(stats == null)
+				continue;
+
+			message.append("\n").append(loop.getName()).append(" (").append(loop.getTickRate()).append(" Hz): ")
+					.append(stats.getTicks()).append(" ticks, ")
+					.append(stats.getOverruns()).append(" overruns, ")
+					.append("avg ").append(toMillis(stats.getAverageTime())).append(" ms")
+					.append(" (input ").append(toMillis(stats.getAverageInputTime()))
+					.append(", logic ").append(toMillis(stats.getAverageLogicTime()))
+					.append(", output ").append(toMillis(stats.getAverageOutputTime())).append("), ")
+					.append("max ").append(toMillis(stats.getMaxTime())).append(" ms, ")
+					.append(Math.round(stats.getHeadroom() * 100)).append("% headroom");
+		}
+
+		sender.sendMessage(message.toString());
+	}
+
+	private static String toMillis(long nanos)
+	{
+		return String.format("%.2f", nanos / 1_000_000d);
+	}
+
+	@Override
+	public boolean needSuper()
+	{
+		return true;
+	}
+}
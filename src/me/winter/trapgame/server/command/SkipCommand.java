@@ -41,7 +41,7 @@ public class SkipCommand implements Command
 	@Override
 	public void execute(CommandSender player, String label, String[] arguments)
 	{
-		player.getServer().getState().skip();
+		player.getArena().getState().skip();
 		//player.sendMessage("The state has been skipped.");
 	}
 
@@ -6,7 +6,7 @@ import java.util.Arrays;
 import java.util.List;
 
 /**
- * Server command used to change the timer of the Waiting State
+ * Server command used to change the timer of the Waiting State of the sender's arena
  *
  * Created by 1541869 on 2016-04-05.
  */
@@ -50,7 +50,7 @@ public class TimerCommand implements Command
 			return;
 		}
 
-		sender.getServer().setWaitingTimer(timer);
+		sender.getArena().setWaitingTimer(timer);
 		sender.sendMessage("The timer for the next waiting states has been set.");
 	}
 
@@ -1,19 +1,24 @@
 package me.winter.trapgame.server.state;
 
+import me.winter.trapgame.server.Arena;
+import me.winter.trapgame.server.GameJournal;
 import me.winter.trapgame.server.Player;
-import me.winter.trapgame.server.TrapGameServer;
-import me.winter.trapgame.shared.BoardFiller;
+import me.winter.trapgame.shared.BoardModel;
+import me.winter.trapgame.shared.BoardOverview;
+import me.winter.trapgame.shared.BoardSnapshot;
+import me.winter.trapgame.shared.EnclosureTracker;
+import me.winter.trapgame.shared.FillMask;
+import me.winter.trapgame.shared.FloodFill;
 import me.winter.trapgame.shared.Task;
-import me.winter.trapgame.shared.packet.PacketOutFill;
-import me.winter.trapgame.shared.packet.PacketOutSpectator;
-import me.winter.trapgame.shared.packet.PacketOutStatus;
-import me.winter.trapgame.shared.packet.PacketOutUpdateStats;
-import me.winter.trapgame.util.CollectionUtil;
-import me.winter.trapgame.util.SortingUtil;
+import me.winter.trapgame.shared.packet.*;
 
 import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 /**
  * Represents a state of the game when players are playing (clicking the board)
@@ -22,45 +27,297 @@ import java.util.List;
  */
 public class GameState extends State
 {
-	private List<Player> spectators;
-	private Map<Point, Player> boardContent;
+	private static final int OVERVIEW_DELAY = 1000;
+	private static final int SNAPSHOT_RESEND_DELAY = 1000;
+
+	//shared by the arenas, a player moving to another arena must not get a lower id
+	private static final AtomicInteger nextSnapshotId = new AtomicInteger();
 
-	public GameState(TrapGameServer server)
+	private List<Player> spectators;
+	private BoardModel board;
+	private FloodFill filler;
+	private EnclosureTracker enclosures;
+	private BoardOverview overview;
+	private Map<Integer, Player> participants;
+	private GameJournal journal;
+
+	private int boardVersion, snapshotVersion;
+	private int snapshotId;
+	private List<ByteBuffer> snapshot;
+	private Map<Player, Long> lastFullResend;
+
+	private int overviewVersion;
+	private PacketOutOverview overviewPacket;
+	private Task overviewTask;
+
+	public GameState(Arena arena)
 	{
-		super(server);
-		this.boardContent = new HashMap<>();
+		super(arena);
+		this.board = new BoardModel(arena.getBoardWidth(), arena.getBoardHeight());
+		this.filler = new FloodFill(board);
+		this.enclosures = new EnclosureTracker(board);
+		this.overview = new BoardOverview(board);
+		this.participants = new HashMap<>();
 		this.spectators = new ArrayList<>();
+		this.boardVersion = 0;
+		this.snapshotVersion = -1;
+		this.snapshot = new ArrayList<>();
+		this.lastFullResend = new HashMap<>();
+		this.overviewVersion = -1;
+		this.overviewTask = new Task(OVERVIEW_DELAY, true, this::sendOverview);
 	}
 
 	@Override
 	public void join(Player player)
 	{
 		spectators.add(player);
-		player.getConnection().sendPacket(new PacketOutSpectator(boardContent));
+		player.getConnection().sendPacketLater(new PacketOutSpectator());
+		sendSnapshot(player);
+	}
+
+	/**
+	 * Sends every chunk of a snapshot of the current board
+	 * @param player player to send the snapshot to
+	 */
+	public void sendSnapshot(Player player)
+	{
+		for(ByteBuffer chunk : getSnapshot())
+			player.getConnection().sendFrameLater(chunk);
+	}
+
+	/**
+	 * Sends again the chunks a player didn't receive
+	 * If the board changed since that snapshot was taken, a new complete snapshot is sent instead,
+	 * at most once per SNAPSHOT_RESEND_DELAY for each player. Each chunk is sent once per request.
+	 *
+	 * @param player player asking for the chunks
+	 * @param request chunks missing
+	 */
+	public void resendSnapshot(Player player, PacketInSnapshotRequest request)
+	{
+		List<ByteBuffer> chunks = getSnapshot();
+
+		if(request.getSnapshotId() != snapshotId)
+		{
+			long now = getArena().getScheduler().getTimeMillis();
+			Long last = lastFullResend.get(player);
+
+			if(last != null && now - last < SNAPSHOT_RESEND_DELAY)
+				return;
+
+			lastFullResend.put(player, now);
+			sendSnapshot(player);
+			return;
+		}
+
+		BitSet requested = new BitSet(chunks.size());
+
+		for(int index : request.getChunks())
+			if(index < chunks.size())
+				requested.set(index);
+
+		for(int index = requested.nextSetBit(0); index >= 0; index = requested.nextSetBit(index + 1))
+			player.getConnection().sendFrameLater(chunks.get(index));
+	}
+
+	/**
+	 * Gives the encoded chunks of a snapshot of the board, taken again only if the board changed
+	 * @return encoded PacketOutBoardSnapshot chunks, shared by every player
+	 */
+	private List<ByteBuffer> getSnapshot()
+	{
+		if(snapshotVersion == boardVersion)
+			return snapshot;
+
+		int width = board.getWidth();
+		int height = board.getHeight();
+		byte[] data = BoardSnapshot.encode(board.getOwners());
+		int count = BoardSnapshot.getChunkCount(data.length);
+
+		snapshotId = nextSnapshotId.getAndIncrement();
+		snapshotVersion = boardVersion;
+		snapshot.clear();
+
+		try
+		{
+			for(int i = 0; i < count; i++)
+				snapshot.add(PacketRegistry.encode(new PacketOutBoardSnapshot(snapshotId, i, count, width, height, BoardSnapshot.getChunk(data, i))));
+		}
+		catch(IOException ex)
+		{
+			getServer().getLogger().log(Level.WARNING, "Couldn't encode board snapshot", ex);
+			snapshot.clear();
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Changes the cells a player is looking at and sends it the ones it didn't see yet
+	 * A player who was looking at the whole board already knows every cell and only gets the overview
+	 *
+	 * @param player player scrolling
+	 * @param viewport cells now seen
+	 */
+	public void view(Player player, Rectangle viewport)
+	{
+		viewport = getArena().getViewport(viewport);
+
+		if(viewport == null)
+			return;
+
+		Rectangle previous = player.getViewport();
+		player.setViewport(viewport);
+
+		if(previous == null)
+		{
+			player.getConnection().sendPacketLater(getOverview());
+			return;
+		}
+
+		Rectangle seen = previous.intersection(viewport);
+
+		if(seen.isEmpty())
+		{
+			sendRegion(player, viewport);
+			return;
+		}
+
+		//the parts of the viewport around the cells already seen
+		sendRegion(player, new Rectangle(viewport.x, viewport.y, viewport.width, seen.y - viewport.y));
+		sendRegion(player, new Rectangle(viewport.x, seen.y + seen.height, viewport.width, viewport.y + viewport.height - seen.y - seen.height));
+		sendRegion(player, new Rectangle(viewport.x, seen.y, seen.x - viewport.x, seen.height));
+		sendRegion(player, new Rectangle(seen.x + seen.width, seen.y, viewport.x + viewport.width - seen.x - seen.width, seen.height));
+	}
+
+	/**
+	 * Sends the cells of a rectangle of the board, in bands of rows small enough for a datagram
+	 * @param player player to send the cells to
+	 * @param area cells to send, nothing is sent if it's empty
+	 */
+	private void sendRegion(Player player, Rectangle area)
+	{
+		if(area.isEmpty())
+			return;
+
+		int rowsPerBand = Math.max(1, BoardSnapshot.MAX_REGION_CELLS / area.width);
+
+		for(int top = area.y; top < area.y + area.height; top += rowsPerBand)
+		{
+			Rectangle band = new Rectangle(area.x, top, area.width, Math.min(rowsPerBand, area.y + area.height - top));
+			player.getConnection().sendPacketLater(new PacketOutRegion(band, BoardSnapshot.encode(board, band.x, band.y, band.width, band.height)));
+		}
+	}
+
+	/**
+	 * Sends the overview to the players looking at a part of the board, if the board changed since the last one
+	 */
+	private void sendOverview()
+	{
+		if(overviewVersion == boardVersion)
+			return;
+
+		List<Player> viewers = new ArrayList<>();
+
+		for(Player player : getArena().getPlayers())
+			if(player.getViewport() != null)
+				viewers.add(player);
+
+		if(!viewers.isEmpty())
+			getServer().getConnection().sendToAllLater(getOverview(), viewers);
+	}
+
+	/**
+	 * Gives the overview of the board and the scores, counted again only if the board changed
+	 * @return overview packet shared by every player
+	 */
+	private PacketOutOverview getOverview()
+	{
+		if(overviewVersion == boardVersion)
+			return overviewPacket;
+
+		int[] scores = new int[0];
+
+		for(int rank = 0; rank < board.getRankedCount(); rank++)
+		{
+			int owner = board.getRanked(rank);
+
+			if(owner >= scores.length)
+				scores = Arrays.copyOf(scores, owner + 1);
+
+			scores[owner] = board.getCount(owner);
+		}
+
+		byte[] data = BoardSnapshot.encode(overview.update());
+
+		overviewVersion = boardVersion;
+		overviewPacket = new PacketOutOverview(overview.getScale(), overview.getWidth(), overview.getHeight(), data, scores);
+		return overviewPacket;
 	}
 
 	@Override
 	public void leave(Player player)
 	{
+		if(journal != null && !spectators.contains(player))
+			journal.leave(player);
+
 		spectators.remove(player);
-		if(getServer().getPlayers().size() < getServer().getMinPlayers())
+		lastFullResend.remove(player);
+		if(getArena().getPlayers().size() < getArena().getMinPlayers())
 		{
-			getServer().getConnection().sendToAll(new PacketOutStatus(PacketOutStatus.GAME_STOP));
-			getServer().setState(new StandbyState(getServer()));
-			getServer().getState().start();
+			getArena().sendToAll(new PacketOutStatus(PacketOutStatus.GAME_STOP));
+			end();
+			getArena().setState(new StandbyState(getArena()));
+			getArena().getState().start();
 		}
 	}
 
 	@Override
 	public void start()
 	{
-		getServer().broadcast(Color.red, "Go !");
-		getServer().getConnection().sendToAll(new PacketOutStatus(PacketOutStatus.GAME_START));
+		//ids of players leaving during the game still own cells, they can't be given to others until it ends
+		getArena().getPlayerRegistry().setRetainingIds(true);
+		getArena().broadcast(Color.red, "Go !");
+		getArena().sendToAll(new PacketOutStatus(PacketOutStatus.GAME_START));
+		getArena().getScheduler().addTask(overviewTask);
+
+		journal = getServer().getJournalWriter().open(getArena());
+
+		if(journal != null)
+		{
+			journal.boardSize(board.getWidth(), board.getHeight());
+			getArena().getPlayers().forEach(journal::join);
+		}
+	}
+
+	/**
+	 * Called when the game is over, before going to the next state
+	 */
+	private void end()
+	{
+		getArena().getPlayerRegistry().setRetainingIds(false);
+		overviewTask.cancel();
+
+		if(journal != null)
+		{
+			boolean winner = board.getRankedCount() == 1
+					|| board.getRankedCount() > 1 && board.getCount(board.getRanked(0)) > board.getCount(board.getRanked(1));
+
+			journal.end(winner ? board.getRanked(0) : BoardModel.EMPTY, winner ? board.getCount(board.getRanked(0)) : 0);
+			journal.close();
+			journal = null;
+		}
 	}
 
 	public void resize()
 	{
-		boardContent.clear();
+		board.resize(getArena().getBoardWidth(), getArena().getBoardHeight());
+		enclosures.reset();
+		overview.reset();
+		boardVersion++;
+
+		if(journal != null)
+			journal.boardSize(board.getWidth(), board.getHeight());
 	}
 
 	public boolean place(Player player, Point point)
@@ -68,112 +325,119 @@ public class GameState extends State
 		if(spectators.contains(player))
 			return false;
 
-		if(point.getX() < 0 || point.getY() < 0
-		|| point.getX() >= getServer().getBoardWidth()
-		|| point.getY() >= getServer().getBoardHeight()
-		|| boardContent.containsKey(point))
+		if(!board.isPlaceable(point.x, point.y, player.getId()))
 			return false;
 
-		if(boardContent.values().contains(player)
-		&& boardContent.get(new Point(point.x + 1, point.y)) != player
-		&& boardContent.get(new Point(point.x - 1, point.y)) != player
-		&& boardContent.get(new Point(point.x, point.y + 1)) != player
-		&& boardContent.get(new Point(point.x, point.y - 1)) != player)
-			return false;
+		participants.putIfAbsent(player.getId(), player);
+		board.set(point.x, point.y, player.getId());
+		enclosures.place(point.x, point.y);
+		overview.mark(point.x, point.y);
+		boardVersion++;
 
-		boardContent.put(point, player);
+		if(journal != null)
+			journal.place(player.getId(), point.x, point.y);
 
-		if(boardContent.size() == getServer().getBoardWidth() * getServer().getBoardHeight())
-			getServer().getScheduler().addTask(new Task(0, false, this::skip));
+		if(board.isFull())
+			getArena().getScheduler().addTask(new Task(0, false, this::skip));
 
 		return true;
 	}
 
 	public Player getOwner(Point location)
 	{
-		return boardContent.get(location);
+		return participants.get(getOwnerId(location));
+	}
+
+	/**
+	 * @param location cell of the board
+	 * @return id of the owner of the cell, BoardModel.EMPTY if it has none
+	 */
+	public int getOwnerId(Point location)
+	{
+		return board.get(location.x, location.y);
 	}
 
 	public void tryFilling(Player player, Point point)
 	{
-		if(boardContent.size() == getServer().getBoardWidth() * getServer().getBoardHeight())
+		if(board.isFull())
 			return;
 
-		for(Player current : getServer().getPlayers())
+		for(Player current : getArena().getPlayers())
 		{
 			if(spectators.contains(current))
 				continue;
 
-			if(!boardContent.containsValue(current))
+			if(board.getCount(current.getId()) == 0)
 				return;
 		}
 
 		for(int direction = 0; direction < 4; direction++)
 		{
-			int x = 0, y = 0;
+			//right, left, down, up
+			int newX = point.x + (direction == 0 ? 1 : direction == 1 ? -1 : 0);
+			int newY = point.y + (direction == 2 ? 1 : direction == 3 ? -1 : 0);
 
-			if(direction < 2)
-				x = (int)Math.pow(-1, direction);
-			else
-				y = (int)Math.pow(-1, direction);
+			//only walks the zone when the tracker knows no other player touches it
+			if(!enclosures.isEnclosed(newX, newY, player.getId()))
+				continue;
 
-			Point newPoint = new Point(point);
-			newPoint.translate(x, y);
+			if(filler.tryFill(newX, newY, player.getId()))
+			{
+				enclosures.release(newX, newY);
+				boardVersion++;
 
-			if(boardContent.get(newPoint) != null)
-				continue;
+				if(journal != null)
+					journal.fill(player.getId(), newX, newY, filler.getFilledCount());
 
-			if(newPoint.getX() < 0
-			|| newPoint.getY() < 0
-			|| newPoint.getX() >= getServer().getBoardWidth()
-			|| newPoint.getY() >= getServer().getBoardHeight())
-				continue;
+				for(FillMask mask : FillMask.of(filler, board.getWidth()))
+				{
+					Rectangle area = new Rectangle(mask.getX(), mask.getY(), mask.getWidth(), mask.getHeight());
 
-			if(BoardFiller.tryFill(newPoint, player, boardContent, getServer().getBoardWidth(), getServer().getBoardHeight()))
-				getServer().getConnection().sendToAllLater(new PacketOutFill(player.getId(), newPoint));
+					overview.mark(area.x, area.y, area.width, area.height);
+					getArena().sendToViewersLater(new PacketOutFill(player.getId(), mask), area);
+				}
+			}
 		}
 
 
-		if(boardContent.size() == getServer().getBoardWidth() * getServer().getBoardHeight())
-			getServer().getScheduler().addTask(new Task(0, false, this::skip));
+		if(board.isFull())
+			getArena().getScheduler().addTask(new Task(0, false, this::skip));
 	}
 
 	@Override
 	public void skip()
 	{
-		getServer().broadcast(gameEnd());
+		getArena().broadcast(gameEnd());
 
-		getServer().getConnection().sendToAllLater(new PacketOutStatus(PacketOutStatus.GAME_STOP));
-		getServer().setState(new WaitingState(getServer()));
-		getServer().getState().start();
+		getArena().sendToAllLater(new PacketOutStatus(PacketOutStatus.GAME_STOP));
+		end();
+		getArena().setState(new WaitingState(getArena()));
+		getArena().getState().start();
 	}
 
 	public String gameEnd()
 	{
-		Set<Player> uniquePlayers = new HashSet<>(boardContent.values());
-
-		if(uniquePlayers.size() == 0)
+		if(board.getRankedCount() == 0)
 			return "Game is finished.";
 
-		Player[] players = uniquePlayers.toArray(new Player[uniquePlayers.size()]);
+		//the board keeps its owners ranked by score, no need to count or sort anything
+		Player[] players = new Player[board.getRankedCount()];
 		int[] scores = new int[players.length];
 
 		for(int i = 0; i < players.length; i++)
-			scores[i] = CollectionUtil.occurrences(players[i], boardContent.values());
-
-		SortingUtil.quickSort(players, scores);
-		SortingUtil.reverse(players);
-		SortingUtil.reverse(scores);
+		{
+			players[i] = participants.get(board.getRanked(i));
+			scores[i] = board.getCount(board.getRanked(i));
+		}
 
 		String message = "Game is finished, ";
 
 		for(int i = 0; i < players.length; i++)
 		{
-			int playersWithThatScore = 0;
+			int playersWithThatScore = 1;
 
-			for(int playerIndex = i; playerIndex < players.length; playerIndex++)
-				if(scores[playerIndex] == scores[i])
-					playersWithThatScore++;
+			while(i + playersWithThatScore < players.length && scores[i + playersWithThatScore] == scores[i])
+				playersWithThatScore++;
 
 			if(i == 0)
 			{
@@ -196,7 +460,7 @@ public class GameState extends State
 			message += "<br /> " + (i + playersWithThatScore) + ": " + players[i].getFormattedName() + " (Score: " + scores[i] + ")";
 		}
 
-		getServer().getConnection().sendToAllLater(new PacketOutUpdateStats(getServer().getPlayersInfo()));
+		getArena().sendToAllLater(new PacketOutUpdateStats(getArena().getPlayersInfo()));
 
 		return message;
 	}
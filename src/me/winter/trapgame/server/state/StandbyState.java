@@ -1,52 +1,52 @@
-package me.winter.trapgame.server.state;
-
-import me.winter.trapgame.server.Player;
-import me.winter.trapgame.server.TrapGameServer;
-
-import java.awt.*;
-
-/**
- * Represents a state of the game when there's not enough players to play
- *
- * Created by Alexander Winter on 2016-03-26.
- */
-public class StandbyState extends State
-{
-	public StandbyState(TrapGameServer server)
-	{
-		super(server);
-	}
-
-	@Override
-	public void join(Player player)
-	{
-		if(getServer().getPlayers().size() >= getServer().getMinPlayers())
-		{
-			skip();
-			return;
-		}
-
-		int amount = getServer().getMinPlayers() - getServer().getPlayers().size();
-
-		getServer().broadcast(Color.gray, "Need " + amount + " more player" + (amount > 1 ? "1" : "") + " to start.");
-	}
-
-	@Override
-	public void leave(Player player)
-	{
-
-	}
-
-	@Override
-	public void start()
-	{
-		getServer().broadcast(Color.gray, "Sorry, there's not enough players. Please wait.");
-	}
-
-	@Override
-	public void skip()
-	{
-		getServer().setState(new WaitingState(getServer()));
-		getServer().getState().start();
-	}
-}
+package me.winter.trapgame.server.state;
+
+import me.winter.trapgame.server.Arena;
+import me.winter.trapgame.server.Player;
+
+import java.awt.*;
+
+/**
+ * Represents a state of the game when there's not enough players to play
+ *
+ * Created by Alexander Winter on 2016-03-26.
+ */
+public class StandbyState extends State
+{
+	public StandbyState(Arena arena)
+	{
+		super(arena);
+	}
+
+	@Override
+	public void join(Player player)
+	{
+		if(getArena().getPlayers().size() >= getArena().getMinPlayers())
+		{
+			skip();
+			return;
+		}
+
+		int amount = getArena().getMinPlayers() - getArena().getPlayers().size();
+
+		getArena().broadcast(Color.gray, "Need " + amount + " more player" + (amount > 1 ? "1" : "") + " to start.");
+	}
+
+	@Override
+	public void leave(Player player)
+	{
+
+	}
+
+	@Override
+	public void start()
+	{
+		getArena().broadcast(Color.gray, "Sorry, there's not enough players. Please wait.");
+	}
+
+	@Override
+	public void skip()
+	{
+		getArena().setState(new WaitingState(getArena()));
+		getArena().getState().start();
+	}
+}
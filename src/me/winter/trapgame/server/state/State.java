@@ -1,20 +1,21 @@
 package me.winter.trapgame.server.state;
 
+import me.winter.trapgame.server.Arena;
 import me.winter.trapgame.server.Player;
 import me.winter.trapgame.server.TrapGameServer;
 
 /**
- * Represents a state of the game server
+ * Represents a state of the game in an arena
  *
  * Created by winter on 25/03/16.
  */
 public abstract class State
 {
-	private TrapGameServer server;
+	private Arena arena;
 
-	public State(TrapGameServer server)
+	public State(Arena arena)
 	{
-		this.server = server;
+		this.arena = arena;
 	}
 
 	/**
@@ -40,8 +41,13 @@ public abstract class State
 	public abstract void skip();
 
 
+	public Arena getArena()
+	{
+		return arena;
+	}
+
 	public TrapGameServer getServer()
 	{
-		return server;
+		return arena.getServer();
 	}
 }
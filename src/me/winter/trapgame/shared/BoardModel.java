@@ -0,0 +1,293 @@
+package me.winter.trapgame.shared;
+
+import java.util.Arrays;
+
+/**
+ * The cells of a play board, each holding the id of its owner or EMPTY
+ * Cells are stored row by row in a flat array so reading or writing one never allocates
+ *
+ * Also keeps how many cells each owner has, so checking if a player has
+ * placed a cell yet doesn't scan the board, and a ranking of the owners
+ * by their amount of cells updated on every change
+ */
+public class BoardModel
+{
+	public static final int EMPTY = -1;
+
+	private int width, height;
+	private int[] owners;
+	private int[] counts;
+	private int filled;
+
+	private int[] ranking; //owners with at least a cell, most cells first
+	private int[] ranks; //position of each owner in the ranking, -1 if not ranked
+	private int ranked;
+
+	public BoardModel(int width, int height)
+	{
+		this.counts = new int[0];
+		this.ranking = new int[0];
+		this.ranks = new int[0];
+		resize(width, height);
+	}
+
+	/**
+	 * Changes the size of the board, which empties it
+	 *
+	 * @param width new width
+	 * @param height new height
+	 */
+	public void resize(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		this.owners = new int[width * height];
+		clear();
+	}
+
+	public void clear()
+	{
+		Arrays.fill(owners, EMPTY);
+		Arrays.fill(counts, 0);
+		Arrays.fill(ranks, -1);
+		filled = 0;
+		ranked = 0;
+	}
+
+	public boolean contains(int x, int y)
+	{
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	public int getIndex(int x, int y)
+	{
+		return y * width + x;
+	}
+
+	/**
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 * @return the owner of the cell, EMPTY if it has none or is outside the board
+	 */
+	public int get(int x, int y)
+	{
+		if(!contains(x, y))
+			return EMPTY;
+
+		return owners[y * width + x];
+	}
+
+	public int get(int index)
+	{
+		return owners[index];
+	}
+
+	public boolean isEmpty(int x, int y)
+	{
+		return get(x, y) == EMPTY;
+	}
+
+	/**
+	 * Gives a cell to an owner, or empties it
+	 *
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 * @param owner new owner of the cell, EMPTY to empty it
+	 */
+	public void set(int x, int y, int owner)
+	{
+		set(y * width + x, owner);
+	}
+
+	public void set(int index, int owner)
+	{
+		int previous = owners[index];
+
+		if(previous == owner)
+			return;
+
+		if(previous == EMPTY)
+			filled++;
+		else
+			decrement(previous);
+
+		if(owner == EMPTY)
+			filled--;
+		else
+			increment(owner);
+
+		owners[index] = owner;
+	}
+
+	/**
+	 * Adds a cell to an owner and moves it up the ranking past the owners it now has more cells than
+	 * @param owner owner gaining a cell
+	 */
+	private void increment(int owner)
+	{
+		if(owner >= counts.length)
+		{
+			int length = Math.max(owner + 1, counts.length * 2);
+			int oldLength = ranks.length;
+
+			counts = Arrays.copyOf(counts, length);
+			ranking = Arrays.copyOf(ranking, length);
+			ranks = Arrays.copyOf(ranks, length);
+			Arrays.fill(ranks, oldLength, length, -1);
+		}
+
+		int count = ++counts[owner];
+		int rank = ranks[owner];
+
+		if(rank < 0)
+			rank = ranked++;
+
+		while(rank > 0 && counts[ranking[rank - 1]] < count)
+		{
+			ranking[rank] = ranking[rank - 1];
+			ranks[ranking[rank]] = rank;
+			rank--;
+		}
+
+		ranking[rank] = owner;
+		ranks[owner] = rank;
+	}
+
+	/**
+	 * Removes a cell from an owner and moves it down the ranking, out of it if it has no cell left
+	 * @param owner owner losing a cell
+	 */
+	private void decrement(int owner)
+	{
+		int count = --counts[owner];
+		int rank = ranks[owner];
+
+		while(rank + 1 < ranked && (count == 0 || counts[ranking[rank + 1]] >= count))
+		{
+			ranking[rank] = ranking[rank + 1];
+			ranks[ranking[rank]] = rank;
+			rank++;
+		}
+
+		if(count == 0)
+		{
+			ranks[owner] = -1;
+			ranked--;
+			return;
+		}
+
+		ranking[rank] = owner;
+		ranks[owner] = rank;
+	}
+
+	/**
+	 * Tells if an owner can place a cell, which has to be empty and next to one of its cells
+	 * unless it has none yet. Only reads the cell and the 4 around it.
+	 *
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 * @param owner owner placing the cell
+	 * @return true if the cell can be placed
+	 */
+	public boolean isPlaceable(int x, int y, int owner)
+	{
+		if(!contains(x, y) || owners[y * width + x] != EMPTY)
+			return false;
+
+		return getCount(owner) == 0 || hasNeighbour(x, y, owner);
+	}
+
+	/**
+	 * Tells if one of the 4 cells next to a cell belongs to an owner
+	 *
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 * @param owner owner to look for
+	 * @return true if a neighbour belongs to that owner
+	 */
+	public boolean hasNeighbour(int x, int y, int owner)
+	{
+		return get(x + 1, y) == owner
+			|| get(x - 1, y) == owner
+			|| get(x, y + 1) == owner
+			|| get(x, y - 1) == owner;
+	}
+
+	/**
+	 * @param owner id of the owner
+	 * @return amount of cells that owner has
+	 */
+	public int getCount(int owner)
+	{
+		return owner >= 0 && owner < counts.length ? counts[owner] : 0;
+	}
+
+	/**
+	 * @return amount of owners having at least a cell
+	 */
+	public int getRankedCount()
+	{
+		return ranked;
+	}
+
+	/**
+	 * Gives the owner at a position of the ranking
+	 * Owners with the same amount of cells keep the order in which they reached it
+	 *
+	 * @param rank position in the ranking, 0 being the owner with the most cells
+	 * @return id of the owner at that position
+	 */
+	public int getRanked(int rank)
+	{
+		if(rank < 0 || rank >= ranked)
+			throw new IndexOutOfBoundsException("Rank " + rank + " out of " + ranked);
+
+		return ranking[rank];
+	}
+
+	/**
+	 * @param owner id of the owner
+	 * @return position of the owner in the ranking, -1 if it has no cell
+	 */
+	public int getRank(int owner)
+	{
+		return owner >= 0 && owner < ranks.length ? ranks[owner] : -1;
+	}
+
+	/**
+	 * @return amount of cells having an owner
+	 */
+	public int getFilled()
+	{
+		return filled;
+	}
+
+	public boolean isFull()
+	{
+		return filled == owners.length;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public int getSize()
+	{
+		return owners.length;
+	}
+
+	/**
+	 * The owner of every cell row by row, not to be modified
+	 * @return the array backing the board
+	 */
+	public int[] getOwners()
+	{
+		return owners;
+	}
+}
@@ -0,0 +1,169 @@
+package me.winter.trapgame.shared;
+
+import java.util.Arrays;
+
+/**
+ * A low resolution copy of a board, each block of cells showing the owner of most of its cells
+ *
+ * The scale is chosen so the whole overview always fits in a single packet, whatever the board size.
+ * Only the blocks marked as changed since the last update are counted again.
+ */
+public class BoardOverview
+{
+	/**
+	 * Maximum amount of blocks of an overview
+	 */
+	public static final int MAX_BLOCKS = 2048;
+
+	private BoardModel board;
+	private int scale, width, height;
+	private int[] owners;
+
+	private boolean[] changed;
+	private int[] changedBlocks;
+	private int changedCount;
+
+	private int[] counts;
+
+	/**
+	 * @param board board to follow, must be empty
+	 */
+	public BoardOverview(BoardModel board)
+	{
+		this.board = board;
+		this.counts = new int[8];
+		reset();
+	}
+
+	/**
+	 * Forgets every block, to be called once the board was emptied or resized
+	 */
+	public void reset()
+	{
+		scale = getScale(board.getWidth(), board.getHeight());
+		width = (board.getWidth() + scale - 1) / scale;
+		height = (board.getHeight() + scale - 1) / scale;
+
+		owners = new int[width * height];
+		Arrays.fill(owners, BoardModel.EMPTY);
+		changed = new boolean[owners.length];
+		changedBlocks = new int[owners.length];
+		changedCount = 0;
+	}
+
+	/**
+	 * @param boardWidth width of a board
+	 * @param boardHeight height of a board
+	 * @return side in cells of the blocks of its overview
+	 */
+	public static int getScale(int boardWidth, int boardHeight)
+	{
+		int scale = 1;
+
+		while(((boardWidth + scale - 1) / scale) * ((boardHeight + scale - 1) / scale) > MAX_BLOCKS)
+			scale++;
+
+		return scale;
+	}
+
+	/**
+	 * Marks the block of a cell as changed
+	 *
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 */
+	public void mark(int x, int y)
+	{
+		int block = (y / scale) * width + x / scale;
+
+		if(changed[block])
+			return;
+
+		changed[block] = true;
+		changedBlocks[changedCount++] = block;
+	}
+
+	/**
+	 * Marks every block touching a rectangle of cells as changed
+	 *
+	 * @param x left of the rectangle
+	 * @param y top of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 */
+	public void mark(int x, int y, int width, int height)
+	{
+		for(int blockY = y / scale; blockY <= (y + height - 1) / scale && blockY < this.height; blockY++)
+			for(int blockX = x / scale; blockX <= (x + width - 1) / scale && blockX < this.width; blockX++)
+				mark(blockX * scale, blockY * scale);
+	}
+
+	/**
+	 * @return true if a block changed since the last update
+	 */
+	public boolean hasChanged()
+	{
+		return changedCount > 0;
+	}
+
+	/**
+	 * Counts again the blocks that changed
+	 * @return owner of each block row by row, BoardModel.EMPTY if most of its cells are empty
+	 */
+	public int[] update()
+	{
+		for(int i = 0; i < changedCount; i++)
+		{
+			int block = changedBlocks[i];
+
+			owners[block] = count(block % width * scale, block / width * scale);
+			changed[block] = false;
+		}
+
+		changedCount = 0;
+		return owners;
+	}
+
+	private int count(int left, int top)
+	{
+		int right = Math.min(left + scale, board.getWidth());
+		int bottom = Math.min(top + scale, board.getHeight());
+		int best = BoardModel.EMPTY, bestCount = 0;
+
+		//owners are counted shifted by one so empty cells are counted as well
+		for(int y = top; y < bottom; y++)
+		{
+			for(int x = left; x < right; x++)
+			{
+				int owner = board.get(x, y) + 1;
+
+				if(owner >= counts.length)
+					counts = Arrays.copyOf(counts, Math.max(owner + 1, counts.length * 2));
+
+				if(++counts[owner] > bestCount)
+				{
+					bestCount = counts[owner];
+					best = owner - 1;
+				}
+			}
+		}
+
+		Arrays.fill(counts, 0);
+		return best;
+	}
+
+	public int getScale()
+	{
+		return scale;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+}
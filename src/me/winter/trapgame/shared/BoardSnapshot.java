@@ -0,0 +1,150 @@
+package me.winter.trapgame.shared;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Encodes the owners of every cell of a board as a run-length encoded grid
+ *
+ * Cells are taken row by row. Each run is written as its length followed by
+ * the owner id + 1 (0 for an empty cell), both as unsigned variable length
+ * integers, so a mostly empty or mostly filled board takes a few bytes.
+ */
+public class BoardSnapshot
+{
+	/**
+	 * Size in bytes of the encoded grid carried by a single chunk
+	 */
+	public static final int CHUNK_SIZE = 1024;
+
+	/**
+	 * Maximum amount of cells of a region carried by a single packet,
+	 * at most two bytes per cell so its encoded grid always fits in a datagram
+	 */
+	public static final int MAX_REGION_CELLS = 2048;
+
+	private BoardSnapshot() {}
+
+	/**
+	 * @param owners id of the owner of each cell row by row, BoardModel.EMPTY for empty cells
+	 * @return encoded grid
+	 */
+	public static byte[] encode(int[] owners)
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream(64);
+
+		for(int start = 0; start < owners.length; )
+		{
+			int owner = owners[start];
+			int end = start + 1;
+
+			while(end < owners.length && owners[end] == owner)
+				end++;
+
+			writeVarInt(stream, end - start);
+			writeVarInt(stream, owner + 1);
+			start = end;
+		}
+
+		return stream.toByteArray();
+	}
+
+	/**
+	 * @param board board to encode
+	 * @param x left of a rectangle of the board
+	 * @param y top of a rectangle of the board
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @return encoded grid of the cells of the rectangle, row by row inside it
+	 */
+	public static byte[] encode(BoardModel board, int x, int y, int width, int height)
+	{
+		int[] owners = new int[width * height];
+
+		for(int row = 0; row < height; row++)
+			for(int column = 0; column < width; column++)
+				owners[row * width + column] = board.get(x + column, y + row);
+
+		return encode(owners);
+	}
+
+	/**
+	 * @param data encoded grid
+	 * @param cells amount of cells of the board
+	 * @return id of the owner of each cell row by row, BoardModel.EMPTY for empty cells
+	 * @throws IOException if the data doesn't describe exactly that amount of cells
+	 */
+	public static int[] decode(byte[] data, int cells) throws IOException
+	{
+		int[] owners = new int[cells];
+		int[] position = {0};
+		int cell = 0;
+
+		while(position[0] < data.length)
+		{
+			int length = readVarInt(data, position);
+			int owner = readVarInt(data, position) - 1;
+
+			if(length <= 0 || length > cells - cell)
+				throw new IOException("Invalid board snapshot run of " + length + " cells at cell " + cell);
+
+			Arrays.fill(owners, cell, cell + length, owner);
+			cell += length;
+		}
+
+		if(cell != cells)
+			throw new IOException("Board snapshot has " + cell + " cells instead of " + cells);
+
+		return owners;
+	}
+
+	/**
+	 * @param length size of an encoded grid in bytes
+	 * @return amount of chunks needed to send it
+	 */
+	public static int getChunkCount(int length)
+	{
+		return Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+	}
+
+	/**
+	 * @param data encoded grid
+	 * @param index index of the chunk
+	 * @return the part of the encoded grid carried by that chunk
+	 */
+	public static byte[] getChunk(byte[] data, int index)
+	{
+		int start = index * CHUNK_SIZE;
+		return Arrays.copyOfRange(data, start, Math.min(data.length, start + CHUNK_SIZE));
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream stream, int value)
+	{
+		while((value & ~0x7F) != 0)
+		{
+			stream.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		stream.write(value);
+	}
+
+	private static int readVarInt(byte[] data, int[] position) throws IOException
+	{
+		int value = 0;
+
+		for(int shift = 0; shift < 32; shift += 7)
+		{
+			if(position[0] >= data.length)
+				throw new IOException("Truncated board snapshot");
+
+			int current = data[position[0]++];
+			value |= (current & 0x7F) << shift;
+
+			if((current & 0x80) == 0)
+				return value;
+		}
+
+		throw new IOException("Invalid variable length integer in board snapshot");
+	}
+}
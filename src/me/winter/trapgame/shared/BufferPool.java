@@ -0,0 +1,75 @@
+package me.winter.trapgame.shared;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct ByteBuffers of the same size
+ * Buffers are recycled instead of being allocated for every datagram
+ * Can be used by many threads at the same time
+ */
+public class BufferPool
+{
+	private Queue<ByteBuffer> buffers;
+	private AtomicInteger pooled;
+	private int bufferSize, capacity;
+
+	/**
+	 * Creates a pool of buffers
+	 * @param bufferSize capacity in bytes of each buffer
+	 * @param capacity maximum amount of idle buffers kept by the pool
+	 */
+	public BufferPool(int bufferSize, int capacity)
+	{
+		this.buffers = new ConcurrentLinkedQueue<>();
+		this.pooled = new AtomicInteger(0);
+		this.bufferSize = bufferSize;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Takes a cleared buffer from the pool, allocates one if the pool is empty
+	 * @return a buffer ready to be written
+	 */
+	public ByteBuffer acquire()
+	{
+		ByteBuffer buffer = buffers.poll();
+
+		if(buffer == null)
+			return ByteBuffer.allocateDirect(bufferSize);
+
+		pooled.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Gives back a buffer to the pool. The buffer shouldn't be used after this call
+	 * @param buffer buffer previously acquired
+	 */
+	public void release(ByteBuffer buffer)
+	{
+		if(buffer == null || buffer.capacity() != bufferSize)
+			return;
+
+		if(pooled.incrementAndGet() > capacity)
+		{
+			pooled.decrementAndGet();
+			return;
+		}
+
+		buffers.offer(buffer);
+	}
+
+	public int getBufferSize()
+	{
+		return bufferSize;
+	}
+
+	public int getPooled()
+	{
+		return pooled.get();
+	}
+}
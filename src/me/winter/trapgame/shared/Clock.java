@@ -0,0 +1,44 @@
+package me.winter.trapgame.shared;
+
+/**
+ * Source of time of a scheduler
+ *
+ * The system clock follows real time. A ManualClock only moves when told to,
+ * so timers can be run deterministically and faster than real time.
+ *
+ * @see ManualClock
+ */
+public interface Clock
+{
+	/**
+	 * Clock following real time, from System.nanoTime()
+	 */
+	Clock SYSTEM = () -> System.nanoTime() / 1_000_000;
+
+	/**
+	 * @return milliseconds elapsed from an arbitrary origin, never going backwards
+	 */
+	long millis();
+
+	/**
+	 * Registers a monitor threads will wait on through this clock, once when it is created
+	 * @param monitor monitor to notify when the clock moves
+	 */
+	default void register(Object monitor)
+	{
+	}
+
+	/**
+	 * Waits on a monitor held by the caller until it is notified or some time of this clock elapsed
+	 * Can return earlier, callers check again what they were waiting for
+	 * The monitor must have been registered to this clock
+	 *
+	 * @param monitor monitor held by the caller
+	 * @param millis time to wait, 0 to wait until notified
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	default void await(Object monitor, long millis) throws InterruptedException
+	{
+		monitor.wait(millis);
+	}
+}
@@ -0,0 +1,435 @@
+package me.winter.trapgame.shared;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the empty regions of a board labelled while cells are placed,
+ * so telling if a region only touches a single owner doesn't walk the region
+ *
+ * Each region counts how many times each owner touches it. Placing a cell only
+ * updates the counts around it. When the cell may have cut its region in parts,
+ * the parts are explored at the same pace and the exploration stops once a
+ * single part is left growing, so only the parts cut off are labelled again.
+ *
+ * Between two resets, cells must only go from empty to owned
+ */
+public class EnclosureTracker
+{
+	//up, right, down, left: each direction is next to the following one around a cell
+	private static final int[] DX = {0, 1, 0, -1};
+	private static final int[] DY = {-1, 0, 1, 0};
+
+	private BoardModel board;
+
+	private int[] labels; //region of each empty cell
+	private int[] sizes; //amount of cells of each region
+	private int[][] contacts; //times each owner touches each region
+	private int[] distinct; //amount of owners touching each region
+	private int labelCount;
+	private int[] freeLabels;
+	private int freeCount;
+
+	private int[][] queues;
+	private int[] heads, tails;
+	private int[] groups;
+	private int[] marks, visitors;
+	private int epoch;
+
+	/**
+	 * @param board board to track, must be empty
+	 */
+	public EnclosureTracker(BoardModel board)
+	{
+		this.board = board;
+		this.labels = new int[0];
+		this.sizes = new int[0];
+		this.contacts = new int[0][];
+		this.distinct = new int[0];
+		this.freeLabels = new int[0];
+		this.queues = new int[4][];
+		this.heads = new int[4];
+		this.tails = new int[4];
+		this.groups = new int[4];
+		this.marks = new int[0];
+		this.visitors = new int[0];
+		reset();
+	}
+
+	/**
+	 * Forgets every region, to be called once the board was emptied or resized
+	 */
+	public void reset()
+	{
+		int size = board.getSize();
+
+		if(labels.length != size)
+		{
+			labels = new int[size];
+			marks = new int[size];
+			visitors = new int[size];
+			epoch = 0;
+
+			for(int i = 0; i < queues.length; i++)
+				queues[i] = new int[Math.max(1, Math.min(size, 64))];
+		}
+		else
+			Arrays.fill(labels, 0);
+
+		labelCount = 0;
+		freeCount = 0;
+
+		int label = allocate();
+		sizes[label] = size;
+	}
+
+	/**
+	 * Updates the regions after a cell was given to an owner
+	 *
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 */
+	public void place(int x, int y)
+	{
+		int index = board.getIndex(x, y);
+		int owner = board.get(index);
+		int label = labels[index];
+
+		sizes[label]--;
+
+		for(int direction = 0; direction < 4; direction++)
+		{
+			int next = getNeighbour(x, y, direction);
+
+			if(next < 0)
+				continue;
+
+			int nextOwner = board.get(next);
+
+			if(nextOwner == BoardModel.EMPTY)
+				addContact(label, owner, 1);
+			else
+				addContact(label, nextOwner, -1);
+		}
+
+		if(sizes[label] == 0)
+			free(label);
+		else if(countParts(x, y) > 1)
+			split(x, y, label);
+	}
+
+	/**
+	 * Tells in constant time if filling the region of a cell would succeed
+	 *
+	 * @param x x of an empty cell
+	 * @param y y of an empty cell
+	 * @param owner owner trying to fill the region
+	 * @return true if no other owner touches the region
+	 */
+	public boolean isEnclosed(int x, int y, int owner)
+	{
+		if(!board.contains(x, y) || !board.isEmpty(x, y))
+			return false;
+
+		int label = labels[board.getIndex(x, y)];
+		int[] counts = contacts[label];
+		int touching = owner >= 0 && owner < counts.length && counts[owner] > 0 ? 1 : 0;
+
+		return distinct[label] == touching;
+	}
+
+	/**
+	 * Forgets the region of a cell after it was filled
+	 *
+	 * @param x x of a cell that was in the region
+	 * @param y y of a cell that was in the region
+	 */
+	public void release(int x, int y)
+	{
+		free(labels[board.getIndex(x, y)]);
+	}
+
+	/**
+	 * @return amount of empty regions on the board
+	 */
+	public int getRegionCount()
+	{
+		return labelCount - freeCount;
+	}
+
+	/**
+	 * Counts the groups of empty cells next to a cell that are linked without leaving its 8 surrounding cells
+	 * Two groups here may still be linked by a longer path, but one group means the region wasn't cut
+	 *
+	 * @param x x of the cell
+	 * @param y y of the cell
+	 * @return amount of groups
+	 */
+	private int countParts(int x, int y)
+	{
+		int empty = 0, links = 0;
+
+		for(int direction = 0; direction < 4; direction++)
+		{
+			if(!isEmpty(x + DX[direction], y + DY[direction]))
+				continue;
+
+			empty++;
+
+			int following = (direction + 1) % 4;
+
+			if(isEmpty(x + DX[following], y + DY[following])
+					&& isEmpty(x + DX[direction] + DX[following], y + DY[direction] + DY[following]))
+				links++;
+		}
+
+		return links == 4 ? 1 : empty - links;
+	}
+
+	/**
+	 * Explores the region from every empty cell next to a cell that was just placed
+	 * Explorations meeting each other are grouped. Once at most one group is still growing,
+	 * every completed group is a part cut off and gets a new label, the last group keeps the old one.
+	 *
+	 * @param x x of the cell placed
+	 * @param y y of the cell placed
+	 * @param label region the cell was in
+	 */
+	private void split(int x, int y, int label)
+	{
+		if(++epoch == 0)
+		{
+			Arrays.fill(marks, 0);
+			epoch = 1;
+		}
+
+		for(int source = 0; source < 4; source++)
+		{
+			int start = getNeighbour(x, y, source);
+
+			groups[source] = source;
+			heads[source] = 0;
+			tails[source] = 0;
+
+			if(start < 0 || board.get(start) != BoardModel.EMPTY)
+				continue;
+
+			queues[source][tails[source]++] = start;
+			marks[start] = epoch;
+			visitors[start] = source;
+		}
+
+		int width = board.getWidth();
+
+		while(countGrowing() > 1)
+		{
+			for(int source = 0; source < 4; source++)
+			{
+				if(heads[source] == tails[source])
+					continue;
+
+				int current = queues[source][heads[source]++];
+				int currentX = current % width;
+				int currentY = current / width;
+
+				for(int direction = 0; direction < 4; direction++)
+				{
+					int next = getNeighbour(currentX, currentY, direction);
+
+					if(next < 0 || board.get(next) != BoardModel.EMPTY)
+						continue;
+
+					if(marks[next] == epoch)
+					{
+						groups[getGroup(visitors[next])] = getGroup(source);
+						continue;
+					}
+
+					marks[next] = epoch;
+					visitors[next] = source;
+
+					if(tails[source] == queues[source].length)
+						queues[source] = Arrays.copyOf(queues[source], Math.min(queues[source].length * 2, marks.length));
+
+					queues[source][tails[source]++] = next;
+				}
+			}
+		}
+
+		//the group still growing keeps the label, or the largest if they all completed
+		int kept = -1;
+
+		for(int source = 0; source < 4; source++)
+		{
+			if(getGroup(source) != source)
+				continue;
+
+			if(isGrowing(source))
+			{
+				kept = source;
+				break;
+			}
+
+			if(kept < 0 || countVisited(source) > countVisited(kept))
+				kept = source;
+		}
+
+		for(int source = 0; source < 4; source++)
+			if(getGroup(source) == source && source != kept && tails[source] > 0)
+				relabel(source, label);
+	}
+
+	/**
+	 * Gives a new label to every cell explored by a group and moves their contacts to it
+	 *
+	 * @param group root of the group
+	 * @param label region the cells were in
+	 */
+	private void relabel(int group, int label)
+	{
+		int newLabel = allocate();
+		int width = board.getWidth();
+
+		for(int source = 0; source < 4; source++)
+		{
+			if(getGroup(source) != group)
+				continue;
+
+			for(int i = 0; i < tails[source]; i++)
+			{
+				int cell = queues[source][i];
+				int cellX = cell % width;
+				int cellY = cell / width;
+
+				labels[cell] = newLabel;
+
+				for(int direction = 0; direction < 4; direction++)
+				{
+					int next = getNeighbour(cellX, cellY, direction);
+
+					if(next < 0 || board.get(next) == BoardModel.EMPTY)
+						continue;
+
+					addContact(newLabel, board.get(next), 1);
+					addContact(label, board.get(next), -1);
+				}
+			}
+
+			sizes[newLabel] += tails[source];
+			sizes[label] -= tails[source];
+		}
+	}
+
+	private int countGrowing()
+	{
+		int growing = 0;
+
+		for(int source = 0; source < 4; source++)
+			if(getGroup(source) == source && isGrowing(source))
+				growing++;
+
+		return growing;
+	}
+
+	private boolean isGrowing(int group)
+	{
+		for(int source = 0; source < 4; source++)
+			if(getGroup(source) == group && heads[source] < tails[source])
+				return true;
+
+		return false;
+	}
+
+	private int countVisited(int group)
+	{
+		int visited = 0;
+
+		for(int source = 0; source < 4; source++)
+			if(getGroup(source) == group)
+				visited += tails[source];
+
+		return visited;
+	}
+
+	private int getGroup(int source)
+	{
+		while(groups[source] != source)
+			source = groups[source];
+
+		return source;
+	}
+
+	private void addContact(int label, int owner, int delta)
+	{
+		int[] counts = contacts[label];
+
+		if(owner >= counts.length)
+			counts = contacts[label] = Arrays.copyOf(counts, Math.max(owner + 1, counts.length * 2));
+
+		int before = counts[owner];
+		counts[owner] += delta;
+
+		if(before == 0)
+			distinct[label]++;
+		else if(counts[owner] == 0)
+			distinct[label]--;
+	}
+
+	private int allocate()
+	{
+		int label;
+
+		if(freeCount > 0)
+			label = freeLabels[--freeCount];
+		else
+		{
+			label = labelCount++;
+
+			if(label == sizes.length)
+			{
+				int length = Math.max(4, sizes.length * 2);
+
+				sizes = Arrays.copyOf(sizes, length);
+				contacts = Arrays.copyOf(contacts, length);
+				distinct = Arrays.copyOf(distinct, length);
+			}
+		}
+
+		sizes[label] = 0;
+		distinct[label] = 0;
+
+		if(contacts[label] == null)
+			contacts[label] = new int[8];
+		else
+			Arrays.fill(contacts[label], 0);
+
+		return label;
+	}
+
+	private void free(int label)
+	{
+		if(freeCount == freeLabels.length)
+			freeLabels = Arrays.copyOf(freeLabels, Math.max(4, freeLabels.length * 2));
+
+		sizes[label] = 0;
+		freeLabels[freeCount++] = label;
+	}
+
+	private boolean isEmpty(int x, int y)
+	{
+		return board.contains(x, y) && board.isEmpty(x, y);
+	}
+
+	/**
+	 * @param x x of a cell
+	 * @param y y of a cell
+	 * @param direction 0 to 3, up, right, down or left
+	 * @return board index of the cell next to it in that direction, -1 if outside the board
+	 */
+	private int getNeighbour(int x, int y, int direction)
+	{
+		int nextX = x + DX[direction];
+		int nextY = y + DY[direction];
+
+		return board.contains(nextX, nextY) ? board.getIndex(nextX, nextY) : -1;
+	}
+}
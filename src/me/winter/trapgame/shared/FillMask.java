@@ -0,0 +1,175 @@
+package me.winter.trapgame.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The exact cells given by a fill, as one bit per cell of a rectangle of the board
+ *
+ * Bits are taken row by row inside the rectangle, the lowest bit of each byte first.
+ * A large fill is split in bands of rows so each mask stays small enough for a datagram.
+ */
+public class FillMask
+{
+	/**
+	 * Maximum size in bytes of the bits of a single mask
+	 */
+	public static final int MAX_MASK_SIZE = 1024;
+
+	private int x, y, width, height;
+	private byte[] bits;
+
+	/**
+	 * @param x left of the rectangle
+	 * @param y top of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @param bits a bit for each cell of the rectangle, set if the cell was filled
+	 */
+	public FillMask(int x, int y, int width, int height, byte[] bits)
+	{
+		if(bits.length != getSize(width, height))
+			throw new IllegalArgumentException("A " + width + "x" + height + " mask needs " + getSize(width, height) + " bytes, got " + bits.length);
+
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.bits = bits;
+	}
+
+	/**
+	 * Builds the masks of the cells filled by the last successful fill
+	 *
+	 * @param filler fill engine which just filled a zone
+	 * @param boardWidth width of the board filled
+	 * @return masks covering every filled cell, none if nothing was filled
+	 */
+	public static List<FillMask> of(FloodFill filler, int boardWidth)
+	{
+		List<FillMask> masks = new ArrayList<>();
+		int count = filler.getFilledCount();
+
+		if(count == 0)
+			return masks;
+
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = -1, maxY = -1;
+
+		for(int i = 0; i < count; i++)
+		{
+			int cellX = filler.getFilledCell(i) % boardWidth;
+			int cellY = filler.getFilledCell(i) / boardWidth;
+
+			minX = Math.min(minX, cellX);
+			minY = Math.min(minY, cellY);
+			maxX = Math.max(maxX, cellX);
+			maxY = Math.max(maxY, cellY);
+		}
+
+		int width = maxX - minX + 1;
+		int rowsPerBand = Math.max(1, MAX_MASK_SIZE * 8 / width);
+		int bands = (maxY - minY) / rowsPerBand + 1;
+		byte[][] bits = new byte[bands][];
+
+		for(int i = 0; i < count; i++)
+		{
+			int cellX = filler.getFilledCell(i) % boardWidth - minX;
+			int cellY = filler.getFilledCell(i) / boardWidth - minY;
+			int band = cellY / rowsPerBand;
+
+			if(bits[band] == null)
+				bits[band] = new byte[getSize(width, getBandHeight(band, rowsPerBand, maxY - minY + 1))];
+
+			int bit = (cellY - band * rowsPerBand) * width + cellX;
+			bits[band][bit >> 3] |= 1 << (bit & 7);
+		}
+
+		for(int band = 0; band < bands; band++)
+			if(bits[band] != null)
+				masks.add(new FillMask(minX, minY + band * rowsPerBand, width, getBandHeight(band, rowsPerBand, maxY - minY + 1), bits[band]));
+
+		return masks;
+	}
+
+	private static int getBandHeight(int band, int rowsPerBand, int height)
+	{
+		return Math.min(rowsPerBand, height - band * rowsPerBand);
+	}
+
+	/**
+	 * @param width width of a rectangle
+	 * @param height height of a rectangle
+	 * @return size in bytes of the bits of a mask of that rectangle
+	 */
+	public static int getSize(int width, int height)
+	{
+		return (width * height + 7) / 8;
+	}
+
+	/**
+	 * Gives every cell of the mask to an owner, whatever the board had there
+	 * Cells outside the board are ignored
+	 *
+	 * @param board board to fill
+	 * @param owner owner of the fill
+	 * @return amount of cells set
+	 */
+	public int apply(BoardModel board, int owner)
+	{
+		int set = 0;
+
+		for(int row = 0; row < height; row++)
+		{
+			for(int column = 0; column < width; column++)
+			{
+				int bit = row * width + column;
+
+				if((bits[bit >> 3] & 1 << (bit & 7)) == 0 || !board.contains(x + column, y + row))
+					continue;
+
+				board.set(x + column, y + row, owner);
+				set++;
+			}
+		}
+
+		return set;
+	}
+
+	public boolean contains(int cellX, int cellY)
+	{
+		int column = cellX - x;
+		int row = cellY - y;
+
+		if(column < 0 || row < 0 || column >= width || row >= height)
+			return false;
+
+		int bit = row * width + column;
+		return (bits[bit >> 3] & 1 << (bit & 7)) != 0;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public byte[] getBits()
+	{
+		return bits;
+	}
+}
@@ -0,0 +1,147 @@
+package me.winter.trapgame.shared;
+
+import java.util.Arrays;
+
+/**
+ * Used on server side to auto-fill zones that belong to a player, clients receive the cells filled
+ * Should only be called when all players have placed their first block
+ *
+ * The queue and the visited marks are kept between fills so filling never allocates.
+ * A cell is visited when its mark equals the current epoch, so starting a new fill
+ * only increments the epoch instead of clearing the marks.
+ */
+public class FloodFill
+{
+	private BoardModel board;
+
+	private int[] queue;
+	private int[] marks;
+	private int epoch;
+	private int filled;
+
+	/**
+	 * @param board board to fill, can be resized between fills
+	 */
+	public FloodFill(BoardModel board)
+	{
+		this.board = board;
+		this.queue = new int[0];
+		this.marks = new int[0];
+		this.epoch = 0;
+		this.filled = 0;
+	}
+
+	/**
+	 * Fills the empty zone containing a cell if it only touches cells of an owner
+	 * Stops as soon as the zone touches a cell of another owner
+	 *
+	 * @param x x of a cell of the zone
+	 * @param y y of a cell of the zone
+	 * @param owner owner to give the zone to
+	 * @return true if the zone was filled
+	 */
+	public boolean tryFill(int x, int y, int owner)
+	{
+		filled = 0;
+
+		if(!board.contains(x, y) || !board.isEmpty(x, y))
+			return false;
+
+		prepare();
+
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int head = 0, tail = 0;
+
+		queue[tail++] = board.getIndex(x, y);
+		marks[queue[0]] = epoch;
+
+		while(head < tail)
+		{
+			int current = queue[head++];
+			int currentX = current % width;
+
+			//right, left, down, up
+			for(int direction = 0; direction < 4; direction++)
+			{
+				int next;
+
+				switch(direction)
+				{
+					case 0:
+						if(currentX + 1 >= width)
+							continue;
+						next = current + 1;
+						break;
+					case 1:
+						if(currentX == 0)
+							continue;
+						next = current - 1;
+						break;
+					case 2:
+						if(current + width >= width * height)
+							continue;
+						next = current + width;
+						break;
+					default:
+						if(current < width)
+							continue;
+						next = current - width;
+						break;
+				}
+
+				int nextOwner = board.get(next);
+
+				if(nextOwner == BoardModel.EMPTY)
+				{
+					if(marks[next] != epoch)
+					{
+						marks[next] = epoch;
+						queue[tail++] = next;
+					}
+				}
+				else if(nextOwner != owner)
+					return false;
+			}
+		}
+
+		for(int i = 0; i < tail; i++)
+			board.set(queue[i], owner);
+
+		filled = tail;
+		return true;
+	}
+
+	/**
+	 * @return amount of cells filled by the last successful fill, 0 if it failed
+	 */
+	public int getFilledCount()
+	{
+		return filled;
+	}
+
+	/**
+	 * @param i index of the cell in the fill, from 0 to getFilledCount() - 1
+	 * @return board index of that filled cell
+	 */
+	public int getFilledCell(int i)
+	{
+		return queue[i];
+	}
+
+	private void prepare()
+	{
+		if(queue.length != board.getSize())
+		{
+			queue = new int[board.getSize()];
+			marks = new int[board.getSize()];
+			epoch = 0;
+		}
+
+		if(++epoch == 0)
+		{
+			Arrays.fill(marks, 0);
+			epoch = 1;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package me.winter.trapgame.shared;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A lock-free queue any thread can add to, emptied all at once by a single thread
+ *
+ * Values are pushed on a stack with a single compare and set, the thread emptying it
+ * takes the whole stack and reverses it to get them back in the order they were added.
+ *
+ * @param <T> type of the values
+ */
+class Inbox<T>
+{
+	private AtomicReference<Node<T>> head;
+
+	Inbox()
+	{
+		this.head = new AtomicReference<>();
+	}
+
+	/**
+	 * Adds a value, from any thread
+	 * @param value value to add
+	 */
+	void add(T value)
+	{
+		Node<T> node = new Node<>(value);
+
+		do
+			node.next = head.get();
+		while(!head.compareAndSet(node.next, node));
+	}
+
+	boolean isEmpty()
+	{
+		return head.get() == null;
+	}
+
+	/**
+	 * Takes every value added so far, values added meanwhile are left for the next call
+	 * Only one thread at a time may empty the inbox
+	 *
+	 * @param consumer what to do with each value, oldest first
+	 */
+	void drain(Consumer<T> consumer)
+	{
+		Node<T> node = head.getAndSet(null);
+		Node<T> oldest = null;
+
+		while(node != null)
+		{
+			Node<T> next = node.next;
+			node.next = oldest;
+			oldest = node;
+			node = next;
+		}
+
+		for(; oldest != null; oldest = oldest.next)
+			consumer.accept(oldest.value);
+	}
+
+	/**
+	 * Looks at the values waiting without taking them, newest first
+	 * Must not be called while the inbox is emptied
+	 *
+	 * @param consumer what to do with each value
+	 */
+	void forEach(Consumer<T> consumer)
+	{
+		for(Node<T> node = head.get(); node != null; node = node.next)
+			consumer.accept(node.value);
+	}
+
+	private static class Node<T>
+	{
+		private T value;
+		private Node<T> next;
+
+		private Node(T value)
+		{
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package me.winter.trapgame.shared;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the records of a game journal one after the other, without loading the whole file
+ * A record cut by the end of the file, left by a server which stopped while writing it, ends the journal
+ */
+public class JournalReader implements Closeable
+{
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private long startTime;
+
+	/**
+	 * @param file journal to read
+	 * @throws IOException if the file can't be read or isn't a journal
+	 */
+	public JournalReader(File file) throws IOException
+	{
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(JournalRecord.SIZE * 512);
+		this.buffer.flip();
+
+		if(!fill(JournalRecord.HEADER_SIZE))
+			throw new IOException(file.getName() + " is too short to be a game journal");
+
+		int magic = buffer.getInt();
+		int version = buffer.getShort();
+		int recordSize = buffer.getShort();
+
+		if(magic != JournalRecord.MAGIC)
+			throw new IOException(file.getName() + " isn't a game journal");
+
+		if(version != JournalRecord.VERSION || recordSize != JournalRecord.SIZE)
+			throw new IOException(file.getName() + " is a journal of version " + version + " with records of " + recordSize + " bytes");
+
+		this.startTime = buffer.getLong();
+	}
+
+	/**
+	 * @return the next record, null at the end of the journal
+	 * @throws IOException if the file can't be read
+	 */
+	public JournalRecord next() throws IOException
+	{
+		if(!fill(JournalRecord.SIZE))
+			return null;
+
+		return JournalRecord.read(buffer);
+	}
+
+	/**
+	 * Plays the remaining records on a board, the way the game did
+	 *
+	 * @param board board to play on
+	 * @return amount of records played
+	 * @throws IOException if the file can't be read or a fill doesn't give the cells it gave in the game
+	 */
+	public int replay(BoardModel board) throws IOException
+	{
+		FloodFill filler = new FloodFill(board);
+		JournalRecord record;
+		int count = 0;
+
+		while((record = next()) != null)
+		{
+			count++;
+
+			switch(record.getType())
+			{
+				case JournalRecord.BOARD_SIZE:
+					board.resize(record.getX(), record.getY());
+					break;
+
+				case JournalRecord.PLACE:
+					board.set(record.getX(), record.getY(), record.getOwner());
+					break;
+
+				case JournalRecord.FILL:
+					filler.tryFill(record.getX(), record.getY(), record.getOwner());
+
+					if(filler.getFilledCount() != record.getValue())
+						throw new IOException("Fill at " + record.getX() + ", " + record.getY() + " gave " + filler.getFilledCount() + " cells instead of " + record.getValue());
+					break;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Makes sure the buffer has some bytes remaining, reading more from the file if needed
+	 * @param size amount of bytes needed
+	 * @return false if the file ends before
+	 */
+	private boolean fill(int size) throws IOException
+	{
+		if(buffer.remaining() >= size)
+			return true;
+
+		buffer.compact();
+
+		while(buffer.position() < size)
+		{
+			if(channel.read(buffer) < 0)
+			{
+				buffer.flip();
+				return false;
+			}
+		}
+
+		buffer.flip();
+		return true;
+	}
+
+	/**
+	 * @return time the game started, in milliseconds since the epoch
+	 */
+	public long getStartTime()
+	{
+		return startTime;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
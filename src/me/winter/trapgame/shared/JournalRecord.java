@@ -0,0 +1,122 @@
+package me.winter.trapgame.shared;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single event of a game journal, always written in SIZE bytes
+ *
+ * Fills only keep the cell they started from, replaying the journal fills the same zone again.
+ * A journal starts with a header giving its format and the time the game started,
+ * the time of each record is in milliseconds since then.
+ */
+public class JournalRecord
+{
+	public static final int MAGIC = 0x54474A4C; //TGJL
+	public static final int VERSION = 1;
+
+	public static final int HEADER_SIZE = 16;
+	public static final int SIZE = 16;
+
+	/**
+	 * The board was resized and emptied, x and y are its width and height
+	 */
+	public static final int BOARD_SIZE = 1;
+
+	/**
+	 * A player takes part in the game, value is its color
+	 */
+	public static final int JOIN = 2;
+
+	/**
+	 * A player left during the game, its cells stay on the board
+	 */
+	public static final int LEAVE = 3;
+
+	/**
+	 * A player placed a cell
+	 */
+	public static final int PLACE = 4;
+
+	/**
+	 * A player filled the zone around a cell, value is the amount of cells filled
+	 */
+	public static final int FILL = 5;
+
+	/**
+	 * The game ended, owner is the winner or BoardModel.EMPTY if there is none, value is its score
+	 */
+	public static final int END = 6;
+
+	private int type, owner;
+	private int x, y;
+	private int time, value;
+
+	public JournalRecord(int type, int owner, int x, int y, int time, int value)
+	{
+		this.type = type;
+		this.owner = owner;
+		this.x = x;
+		this.y = y;
+		this.time = time;
+		this.value = value;
+	}
+
+	/**
+	 * @param buffer buffer with at least SIZE bytes remaining
+	 * @return the record read
+	 */
+	public static JournalRecord read(ByteBuffer buffer)
+	{
+		int type = buffer.get() & 0xFF;
+		buffer.get();
+		int owner = buffer.getShort();
+		int x = buffer.getShort() & 0xFFFF;
+		int y = buffer.getShort() & 0xFFFF;
+
+		return new JournalRecord(type, owner, x, y, buffer.getInt(), buffer.getInt());
+	}
+
+	/**
+	 * @param buffer buffer with at least SIZE bytes remaining
+	 */
+	public void write(ByteBuffer buffer)
+	{
+		buffer.put((byte)type);
+		buffer.put((byte)0);
+		buffer.putShort((short)owner);
+		buffer.putShort((short)x);
+		buffer.putShort((short)y);
+		buffer.putInt(time);
+		buffer.putInt(value);
+	}
+
+	public int getType()
+	{
+		return type;
+	}
+
+	public int getOwner()
+	{
+		return owner;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public int getTime()
+	{
+		return time;
+	}
+
+	public int getValue()
+	{
+		return value;
+	}
+}
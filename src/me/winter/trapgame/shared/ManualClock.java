@@ -0,0 +1,78 @@
+package me.winter.trapgame.shared;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * A clock only moving when advanced, for simulations and soak tests
+ *
+ * Threads waiting on the monitors registered to this clock are woken up each time it moves,
+ * so loops running on their own threads follow it as well as a scheduler advanced directly.
+ * The monitors are notified while holding them: a loop computing its delay and waiting under
+ * the same lock can't miss a move.
+ *
+ * @see Scheduler#advance(long)
+ */
+public class ManualClock implements Clock
+{
+	private volatile long time;
+	private Set<Object> monitors;
+
+	public ManualClock()
+	{
+		this(0);
+	}
+
+	/**
+	 * @param time starting time in milliseconds
+	 */
+	public ManualClock(long time)
+	{
+		this.time = time;
+		this.monitors = new CopyOnWriteArraySet<>();
+	}
+
+	@Override
+	public long millis()
+	{
+		return time;
+	}
+
+	@Override
+	public void register(Object monitor)
+	{
+		monitors.add(monitor);
+	}
+
+	/**
+	 * Waits until notified or until the clock moves, whatever the time given
+	 */
+	@Override
+	public void await(Object monitor, long millis) throws InterruptedException
+	{
+		monitor.wait(0);
+	}
+
+	/**
+	 * Moves the clock forward and wakes up the threads waiting on the registered monitors
+	 * @param millis time to add, in milliseconds
+	 */
+	public void advance(long millis)
+	{
+		if(millis < 0)
+			throw new IllegalArgumentException("A clock can't go backwards, got " + millis + " ms");
+
+		synchronized(this)
+		{
+			time += millis;
+		}
+
+		for(Object monitor : monitors)
+		{
+			synchronized(monitor)
+			{
+				monitor.notifyAll();
+			}
+		}
+	}
+}
@@ -1,8 +1,12 @@
 package me.winter.trapgame.shared;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.Optional;
 import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
@@ -12,15 +16,35 @@ import java.util.logging.Logger;
 /**
  * Represents a scheduler executing tasks at a defined time
  *
+ * Tasks are kept in a heap ordered by the time they are due, then by the order they were added.
+ * Each task knows its index in the heap, so it is cancelled or moved without searching for it.
+ *
+ * Any thread can add tasks without locking, they wait in an inbox until the next update
+ * takes them. Work to run as soon as possible can be given to execute without making a task.
+ *
  * @see Task
  */
 public class Scheduler 
 {
 	private Optional<Logger> logger;
+	private Object monitor;
+	private Clock clock;
+
+	private Inbox<Task> submitted;
+	private Inbox<Runnable> immediate;
+
+	private Task[] heap;
+	private long[] deadlines, orders;
+	private int size;
+	private long nextOrder;
+
+	//tasks taken out of the heap by the current update
+	private Task[] due;
+	private int dueCount;
 
-	private List<Task> tasks;
 	private long pauseLength, lastPause, lastPauseLength;
-	private boolean stop, updating;
+	private volatile boolean stop;
+	private volatile Thread updater;
 
 	/**
 	 * Creating a new scheduler stopped by default without logging
@@ -36,11 +60,44 @@ public class Scheduler
 	 *
 	 */
 	public Scheduler(Logger logger)
+	{
+		this(logger, null);
+	}
+
+	/**
+	 * Creating a new scheduler stopped by default with a logger, waking up the thread
+	 * waiting on a monitor when a task is added. Many schedulers sharing the same monitor
+	 * can be updated by a single thread.
+	 *
+	 * @param logger logger of the errors in tasks, can be null
+	 * @param monitor object notified when a task is added, the scheduler itself if null
+	 */
+	public Scheduler(Logger logger, Object monitor)
+	{
+		this(logger, monitor, Clock.SYSTEM);
+	}
+
+	/**
+	 * Creating a new scheduler stopped by default, reading the time from a clock
+	 *
+	 * @param logger logger of the errors in tasks, can be null
+	 * @param monitor object notified when a task is added, the scheduler itself if null
+	 * @param clock source of time of the tasks
+	 */
+	public Scheduler(Logger logger, Object monitor, Clock clock)
 	{
 		this.logger = Optional.ofNullable(logger);
-		this.tasks = new ArrayList<>();
+		this.monitor = monitor != null ? monitor : this;
+		this.clock = clock;
+		clock.register(this.monitor);
+		this.submitted = new Inbox<>();
+		this.immediate = new Inbox<>();
+		this.heap = new Task[16];
+		this.deadlines = new long[16];
+		this.orders = new long[16];
+		this.due = new Task[16];
 		this.stop = true;
-		this.lastPauseLength = System.nanoTime() / 1_000_000;
+		this.lastPauseLength = clock.millis();
 		this.pauseLength = lastPauseLength;
 		this.lastPause = getTimeMillis();
 	}
@@ -53,7 +110,7 @@ public class Scheduler
 	public void start()
 	{
 		stop = false;
-		lastPauseLength = System.nanoTime() / 1_000_000 - lastPause;
+		lastPauseLength = clock.millis() - lastPause;
 		pauseLength += lastPauseLength;
 	}
 
@@ -65,7 +122,7 @@ public class Scheduler
 		if(!stop)
 		{
 			stop = true;
-			lastPause = System.nanoTime() / 1_000_000;
+			lastPause = clock.millis();
 		}
 	}
 
@@ -76,24 +133,21 @@ public class Scheduler
 
 		while(condition.getAsBoolean())
 		{
-			long toWait = getWaitingDelay();
-			if(toWait > 0)
+			try
 			{
-				try
+				synchronized(monitor)
 				{
-					synchronized(this)
-					{
-						if(toWait == Long.MAX_VALUE)
-							wait(0);
-						else
-							wait(toWait);
-					}
-				}
-				catch(InterruptedException ex)
-				{
-					ex.printStackTrace(System.err);
+					//checked while holding the monitor so a task added or a stop meanwhile can't be missed
+					long toWait = getWaitingDelay();
+
+					if(toWait > 0 && condition.getAsBoolean())
+						clock.await(monitor, toWait == Long.MAX_VALUE ? 0 : toWait);
 				}
 			}
+			catch(InterruptedException ex)
+			{
+				ex.printStackTrace(System.err);
+			}
 			update();
 		}
 	}
@@ -103,74 +157,169 @@ public class Scheduler
 		if(stop)
 			return;
 
-		updating = true;
+		updater = Thread.currentThread();
+
+		drainInbox();
+
+		long now = getTimeMillis();
 
-		for(Task task : new ArrayList<>(this.tasks))
+		//every task due is taken out first, so tasks added or repeated meanwhile wait for the next update
+		while(size > 0 && deadlines[0] <= now)
 		{
-			try
-			{
-				if(task == null)
-					continue;
+			Task task = heap[0];
+			removeAt(0);
 
-				if(task.getScheduler() != this)
-				{
-					tasks.remove(task);
-					continue;
-				}
+			if(dueCount == due.length)
+				due = Arrays.copyOf(due, dueCount * 2);
 
+			due[dueCount++] = task;
+		}
+
+		for(int i = 0; i < dueCount; i++)
+		{
+			Task task = due[i];
+
+			//cancelled or moved by a task run before it
+			if(!isDue(task))
+				continue;
+
+			try
+			{
 				if(task.getDelay() == 0)
 				{
 					task.run();
-					if(!task.isRepeating())
-						cancelTask(task);
+
+					if(task.isRepeating())
+						reinsert(task, now);
+					else
+						finish(task);
 					continue;
 				}
 
-				int turns = (int) ((getTimeMillis() - task.getLastWork()) / task.getDelay());
-				if(!task.isRepeating() && turns >= 1)
+				int turns = (int) ((now - task.getLastWork()) / task.getDelay());
+				if(!task.isRepeating())
 				{
 					task.run();
-					cancelTask(task);
+					finish(task);
 					continue;
 				}
 
-				for(int i = 0; i < turns; i++)
+				for(int turn = 0; turn < turns; turn++)
 					task.run();
 
-				task.setLastWork(task.getLastWork() + task.getDelay() * turns);
+				task.updateLastWork(task.getLastWork() + task.getDelay() * turns);
+				reinsert(task, task.getLastWork() + task.getDelay());
 			}
 			catch(Exception ex)
 			{
-				cancelTask(task);
+				finish(task);
 				logger.ifPresent(logger -> logger.log(Level.SEVERE, "Error in scheduler with task " + task.toString(), ex));
 			}
 		}
 
-		updating = false;
+		Arrays.fill(due, 0, dueCount, null);
+		dueCount = 0;
+		updater = null;
 	}
 
-	public long getWaitingDelay()
+	/**
+	 * Runs the runnables given to execute and puts the tasks added since the last update in the heap
+	 * Done by update, can be called before it to do the work received apart from the tasks due
+	 */
+	public synchronized void drainInbox()
 	{
-		long minDelay = Long.MAX_VALUE;
+		if(stop)
+			return;
+
+		Thread previous = updater;
+		updater = Thread.currentThread();
 
-		for(Task task : new ArrayList<>(getTasks()))
+		immediate.drain(this::runNow);
+		submitted.drain(this::accept);
+
+		updater = previous;
+	}
+
+	private void runNow(Runnable runnable)
+	{
+		try
 		{
-			if(task == null)
-				continue;
+			runnable.run();
+		}
+		catch(Exception ex)
+		{
+			logger.ifPresent(logger -> logger.log(Level.SEVERE, "Error in scheduler with " + runnable.toString(), ex));
+		}
+	}
+
+	/**
+	 * Puts in the heap a task taken from the inbox, unless it was cancelled or taken already
+	 */
+	private void accept(Task task)
+	{
+		if(task.getScheduler() != this || !task.isPending())
+			return;
+
+		task.setPending(false);
+		task.setScheduled(true);
+		insert(task, task.getLastWork() + task.getDelay());
+	}
+
+	public synchronized long getWaitingDelay()
+	{
+		if(!immediate.isEmpty() || !submitted.isEmpty())
+			return 0;
+
+		if(size == 0)
+			return Long.MAX_VALUE;
+
+		return deadlines[0] - getTimeMillis();
+	}
+
+	/**
+	 * Runs in order every task due within some time, moving a manual clock to each of them
+	 * Lets whole games and timeouts run at CPU speed, the clock ends advanced by the time given
+	 *
+	 * @param millis time to advance, in milliseconds
+	 * @throws IllegalStateException if the scheduler doesn't use a ManualClock
+	 */
+	public void advance(long millis)
+	{
+		if(!(clock instanceof ManualClock))
+			throw new IllegalStateException("Only a scheduler using a manual clock can be advanced");
+
+		ManualClock manual = (ManualClock)clock;
+		long end = manual.millis() + millis;
+		boolean idle = false;
+
+		while(isRunning())
+		{
+			update();
+
+			long toWait = getWaitingDelay();
 
-			long delay = task.getLastWork() + task.getDelay() - getTimeMillis();
-			if(delay < minDelay)
-				minDelay = delay;
+			if(toWait > end - manual.millis())
+				break;
+
+			//a task due at every update would keep the clock from moving
+			if(toWait <= 0 && idle)
+				toWait = 1;
+
+			idle = toWait <= 0;
+
+			if(toWait > 0)
+				manual.advance(toWait);
 		}
 
-		return minDelay;
+		if(end > manual.millis())
+			manual.advance(end - manual.millis());
 	}
 
 	public long getTimeMillis()
 	{
 		if(!isRunning())
 			return lastPause - pauseLength;
-		return System.nanoTime() / 1_000_000 - pauseLength;
+		return clock.millis() - pauseLength;
 	}
 
 	public void addTask(Runnable runnable, int delay)
@@ -183,16 +332,43 @@ public class Scheduler
 		addTask(new Task(delay, repeat, runnable));
 	}
 
+	/**
+	 * Adds a task from any thread, it is put in the heap by the next update
+	 * @param task task to run
+	 */
 	public void addTask(Task task)
 	{
 		task.register(this);
-		tasks.add(task);
+		task.setPending(true);
+		submitted.add(task);
+		wakeUp();
+	}
 
-		if(!updating)
-			synchronized(this)
-			{
-				notify();
-			}
+	/**
+	 * Runs something as soon as possible, from any thread, without making a task
+	 * Runnables given to execute run at the start of the next update, in the order they were given
+	 *
+	 * @param runnable what to run
+	 */
+	public void execute(Runnable runnable)
+	{
+		immediate.add(runnable);
+		wakeUp();
+	}
+
+	/**
+	 * Wakes up the thread waiting on the monitor of this scheduler
+	 * Not needed from the thread updating it, which looks at the inbox before waiting again
+	 */
+	public void wakeUp()
+	{
+		if(updater == Thread.currentThread())
+			return;
+
+		synchronized(monitor)
+		{
+			monitor.notifyAll();
+		}
 	}
 
 	public void addTasks(Collection<Task> tasks)
@@ -201,9 +377,45 @@ public class Scheduler
 			addTask(task);
 	}
 
-	public void cancelTask(Task task)
+	public synchronized void cancelTask(Task task)
 	{
-		tasks.remove(task);
+		if(task.getScheduler() != this)
+			return;
+
+		//still in the inbox, the next update will skip it
+		task.setPending(false);
+
+		if(!task.isScheduled())
+			return;
+
+		task.setScheduled(false);
+
+		if(task.getHeapIndex() >= 0)
+			removeAt(task.getHeapIndex());
+	}
+
+	/**
+	 * Moves a task in the heap after the time of its last run changed
+	 * @param task task of this scheduler
+	 */
+	synchronized void reschedule(Task task)
+	{
+		if(task.getScheduler() != this || !task.isScheduled())
+			return;
+
+		int index = task.getHeapIndex();
+
+		//running in the current update, put back in the heap with its new time
+		if(index < 0)
+		{
+			insert(task, task.getLastWork() + task.getDelay());
+			return;
+		}
+
+		deadlines[index] = task.getLastWork() + task.getDelay();
+		orders[index] = nextOrder++;
+		siftUp(index);
+		siftDown(task.getHeapIndex());
 	}
 
 	public void cancelTasks(Class<? extends Task> type)
@@ -211,29 +423,224 @@ public class Scheduler
 		cancelIf(type::isInstance);
 	}
 
-	public void cancelIf(Predicate<Task> filter)
+	/**
+	 * Cancels every task having a tag
+	 * @param tag tag of the tasks to cancel
+	 * @see Task#setTag(Object)
+	 */
+	public void cancelTag(Object tag)
 	{
-		tasks.removeIf(filter);
+		cancelIf(task -> tag.equals(task.getTag()));
+	}
+
+	/**
+	 * Cancels every task matching a filter, in a single pass over the heap
+	 * @param filter filter of the tasks to cancel
+	 */
+	public synchronized void cancelIf(Predicate<Task> filter)
+	{
+		submitted.forEach(task -> {
+			if(task.getScheduler() == this && task.isPending() && filter.test(task))
+				task.setPending(false);
+		});
+
+		for(int i = 0; i < dueCount; i++)
+			if(isDue(due[i]) && filter.test(due[i]))
+				due[i].setScheduled(false);
+
+		int kept = 0;
+
+		for(int i = 0; i < size; i++)
+		{
+			Task task = heap[i];
+
+			if(filter.test(task))
+			{
+				task.setScheduled(false);
+				task.setHeapIndex(-1);
+			}
+			else
+				move(i, kept++);
+		}
+
+		Arrays.fill(heap, kept, size, null);
+		size = kept;
+
+		for(int i = size / 2 - 1; i >= 0; i--)
+			siftDown(i);
 	}
 
 	public void cancelAll()
 	{
-		tasks.clear();
+		cancelIf(task -> true);
 	}
 
-	public List<Task> getTasks()
+	/**
+	 * @return a copy of the list of the tasks waiting to run
+	 */
+	public synchronized List<Task> getTasks()
 	{
+		List<Task> tasks = new ArrayList<>(size);
+
+		//a task added twice in a row is twice in the inbox
+		Set<Task> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+		submitted.forEach(task -> {
+			if(task.getScheduler() == this && task.isPending() && pending.add(task))
+				tasks.add(task);
+		});
+
+		for(int i = 0; i < dueCount; i++)
+			if(isDue(due[i]))
+				tasks.add(due[i]);
+
+		tasks.addAll(Arrays.asList(heap).subList(0, size));
 		return tasks;
 	}
 
+	/**
+	 * @return true if a task taken out of the heap by the current update still has to run
+	 */
+	private boolean isDue(Task task)
+	{
+		return task.getScheduler() == this && task.isScheduled() && task.getHeapIndex() < 0;
+	}
+
+	/**
+	 * Puts back a task run by the current update, unless the task itself cancelled or moved it
+	 */
+	private void reinsert(Task task, long deadline)
+	{
+		if(isDue(task))
+			insert(task, deadline);
+	}
+
+	/**
+	 * Marks a task that won't run again, it stays registered to this scheduler
+	 */
+	private void finish(Task task)
+	{
+		if(isDue(task))
+			task.setScheduled(false);
+	}
+
+	private void insert(Task task, long deadline)
+	{
+		if(size == heap.length)
+		{
+			heap = Arrays.copyOf(heap, size * 2);
+			deadlines = Arrays.copyOf(deadlines, size * 2);
+			orders = Arrays.copyOf(orders, size * 2);
+		}
+
+		set(size, task, deadline, nextOrder++);
+		siftUp(size++);
+	}
+
+	private void removeAt(int index)
+	{
+		Task task = heap[index];
+
+		size--;
+
+		if(index != size)
+		{
+			move(size, index);
+			siftDown(index);
+			siftUp(index);
+		}
+
+		heap[size] = null;
+		task.setHeapIndex(-1);
+	}
+
+	private void siftUp(int index)
+	{
+		while(index > 0)
+		{
+			int parent = (index - 1) / 2;
+
+			if(!isBefore(index, parent))
+				return;
+
+			swap(index, parent);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int index)
+	{
+		while(true)
+		{
+			int first = index;
+			int left = index * 2 + 1;
+
+			if(left < size && isBefore(left, first))
+				first = left;
+
+			if(left + 1 < size && isBefore(left + 1, first))
+				first = left + 1;
+
+			if(first == index)
+				return;
+
+			swap(index, first);
+			index = first;
+		}
+	}
+
+	private boolean isBefore(int first, int second)
+	{
+		return deadlines[first] < deadlines[second]
+				|| deadlines[first] == deadlines[second] && orders[first] < orders[second];
+	}
+
+	private void swap(int first, int second)
+	{
+		Task task = heap[first];
+		long deadline = deadlines[first];
+		long order = orders[first];
+
+		move(second, first);
+		set(second, task, deadline, order);
+	}
+
+	private void move(int from, int to)
+	{
+		set(to, heap[from], deadlines[from], orders[from]);
+	}
+
+	private void set(int index, Task task, long deadline, long order)
+	{
+		heap[index] = task;
+		deadlines[index] = deadline;
+		orders[index] = order;
+		task.setHeapIndex(index);
+	}
+
 	public boolean isRunning()
 	{
 		return !stop;
 	}
 
+	/**
+	 * @return source of time of the tasks
+	 */
+	public Clock getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * @return object notified when a task is added
+	 */
+	public Object getMonitor()
+	{
+		return monitor;
+	}
+
 	public boolean isUpdating()
 	{
-		return updating;
+		return updater != null;
 	}
 
 	public long getLastPauseLength()
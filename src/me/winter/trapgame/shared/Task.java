@@ -9,6 +9,15 @@ public class Task implements Runnable
 	private boolean repeating;
 	private Runnable runnable;
 
+	private Object tag;
+
+	//only changed by the scheduler, while it holds its lock
+	private volatile boolean scheduled;
+	private int heapIndex;
+
+	//added to the inbox of the scheduler, not taken yet
+	private volatile boolean pending;
+
 	public Task(long delay)
 	{
 		this(delay, false);
@@ -26,6 +35,7 @@ public class Task implements Runnable
 		this.repeating = repeating;
 		this.scheduler = null;
 		this.runnable = runnable;
+		this.heapIndex = -1;
 	}
 
 	public void cancel()
@@ -48,7 +58,7 @@ public class Task implements Runnable
 
 	public boolean isRunning()
 	{
-		return scheduler != null && scheduler.getTasks().contains(this) && scheduler.isRunning();
+		return scheduler != null && (pending || scheduled) && scheduler.isRunning();
 	}
 
 	public boolean isRegistered()
@@ -87,6 +97,71 @@ public class Task implements Runnable
 	public void setLastWork(long lastWork)
 	{
 		this.lastWork = lastWork;
+
+		if(scheduler != null && scheduled)
+			scheduler.reschedule(this);
+	}
+
+	/**
+	 * Changes the time of the last run without moving the task in its scheduler
+	 * @param lastWork time of the last run
+	 */
+	void updateLastWork(long lastWork)
+	{
+		this.lastWork = lastWork;
+	}
+
+	/**
+	 * @return true if the task waits in the inbox of its scheduler
+	 */
+	boolean isPending()
+	{
+		return pending;
+	}
+
+	void setPending(boolean pending)
+	{
+		this.pending = pending;
+	}
+
+	/**
+	 * @return true if the task waits in the heap of its scheduler
+	 */
+	boolean isScheduled()
+	{
+		return scheduled;
+	}
+
+	void setScheduled(boolean scheduled)
+	{
+		this.scheduled = scheduled;
+	}
+
+	/**
+	 * @return index of the task in the heap of its scheduler, -1 if it isn't in it
+	 */
+	int getHeapIndex()
+	{
+		return heapIndex;
+	}
+
+	void setHeapIndex(int heapIndex)
+	{
+		this.heapIndex = heapIndex;
+	}
+
+	public Object getTag()
+	{
+		return tag;
+	}
+
+	/**
+	 * @param tag object grouping tasks to cancel them together, can be null
+	 * @see Scheduler#cancelTag(Object)
+	 */
+	public void setTag(Object tag)
+	{
+		this.tag = tag;
 	}
 
 	public boolean isRepeating()
@@ -0,0 +1,52 @@
+package me.winter.trapgame.shared.execution;
+
+/**
+ * Runs short blocking jobs (a datagram to send, a server to ping) off the calling thread
+ * Replaces starting a new platform thread for each of them
+ *
+ * A strategy is bounded: jobs it can't take are rejected and counted, never run on the caller
+ */
+public interface ExecutionStrategy
+{
+	/**
+	 * Runs a job asynchronously
+	 *
+	 * @param job job to run
+	 * @return false if the job was rejected
+	 */
+	boolean execute(Runnable job);
+
+	/**
+	 * @return amount of jobs accepted but not finished yet
+	 */
+	int getQueueDepth();
+
+	/**
+	 * @return amount of jobs rejected since creation
+	 */
+	long getRejectedCount();
+
+	/**
+	 * @return short description of the strategy for display
+	 */
+	String getName();
+
+	void shutdown();
+
+	/**
+	 * Creates an execution strategy by its mode name
+	 * The virtual mode falls back to a pool when virtual threads can't be created in this JVM
+	 *
+	 * @param mode "virtual" for a virtual thread per job, anything else for a pool of platform threads
+	 * @param threads amount of platform threads of the pool
+	 * @param capacity maximum amount of jobs waiting for a pool thread, or running on virtual threads
+	 * @param name prefix of the name of the threads
+	 * @return the strategy
+	 */
+	static ExecutionStrategy create(String mode, int threads, int capacity, String name)
+	{
+		ExecutionStrategy strategy = mode.equalsIgnoreCase("virtual") ? VirtualThreadStrategy.create(capacity, name) : null;
+
+		return strategy != null ? strategy : new PooledStrategy(threads, capacity, name);
+	}
+}
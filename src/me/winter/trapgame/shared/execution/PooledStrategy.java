@@ -0,0 +1,76 @@
+package me.winter.trapgame.shared.execution;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs jobs on a fixed amount of daemon platform threads with a bounded queue
+ */
+public class PooledStrategy implements ExecutionStrategy
+{
+	private ThreadPoolExecutor executor;
+	private AtomicLong rejected;
+
+	/**
+	 * @param threads amount of threads of the pool
+	 * @param capacity maximum amount of jobs waiting for a thread
+	 * @param name prefix of the name of the threads
+	 */
+	public PooledStrategy(int threads, int capacity, String name)
+	{
+		AtomicInteger count = new AtomicInteger();
+
+		this.rejected = new AtomicLong();
+		this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+				30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, capacity)),
+				job -> {
+					Thread thread = new Thread(job, name + " #" + count.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public boolean execute(Runnable job)
+	{
+		try
+		{
+			executor.execute(job);
+			return true;
+		}
+		catch(RejectedExecutionException ex)
+		{
+			rejected.incrementAndGet();
+			return false;
+		}
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		return executor.getQueue().size() + executor.getActiveCount();
+	}
+
+	@Override
+	public long getRejectedCount()
+	{
+		return rejected.get();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "pool of " + executor.getMaximumPoolSize() + " threads";
+	}
+
+	@Override
+	public void shutdown()
+	{
+		executor.shutdown();
+	}
+}
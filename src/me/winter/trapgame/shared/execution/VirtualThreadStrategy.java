@@ -0,0 +1,142 @@
+package me.winter.trapgame.shared.execution;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs each job on its own virtual thread, bounded by the amount of jobs in flight
+ *
+ * The game is still built for Java 8, so virtual threads are created through
+ * reflection and only when the running JVM can actually start them
+ */
+public class VirtualThreadStrategy implements ExecutionStrategy
+{
+	private static final Method FACTORY = findFactory();
+
+	private ExecutorService executor;
+	private int capacity;
+	private AtomicInteger inFlight;
+	private AtomicLong rejected;
+
+	private VirtualThreadStrategy(ExecutorService executor, int capacity)
+	{
+		this.executor = executor;
+		this.capacity = Math.max(1, capacity);
+		this.inFlight = new AtomicInteger();
+		this.rejected = new AtomicLong();
+	}
+
+	/**
+	 * @param capacity maximum amount of jobs running at once
+	 * @param name prefix of the name of the threads
+	 * @return the strategy, null if this JVM can't create virtual threads
+	 */
+	public static VirtualThreadStrategy create(int capacity, String name)
+	{
+		if(FACTORY == null)
+			return null;
+
+		try
+		{
+			return new VirtualThreadStrategy((ExecutorService)FACTORY.invoke(null, createThreadFactory(name)), capacity);
+		}
+		catch(ReflectiveOperationException | RuntimeException ex)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public boolean execute(Runnable job)
+	{
+		if(inFlight.incrementAndGet() > capacity)
+		{
+			inFlight.decrementAndGet();
+			rejected.incrementAndGet();
+			return false;
+		}
+
+		try
+		{
+			executor.execute(() -> {
+				try
+				{
+					job.run();
+				}
+				finally
+				{
+					inFlight.decrementAndGet();
+				}
+			});
+			return true;
+		}
+		catch(RejectedExecutionException ex)
+		{
+			inFlight.decrementAndGet();
+			rejected.incrementAndGet();
+			return false;
+		}
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		return inFlight.get();
+	}
+
+	@Override
+	public long getRejectedCount()
+	{
+		return rejected.get();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "virtual threads";
+	}
+
+	@Override
+	public void shutdown()
+	{
+		executor.shutdown();
+	}
+
+	public static boolean isSupported()
+	{
+		return FACTORY != null;
+	}
+
+	/**
+	 * Equivalent of Thread.ofVirtual().name(name + " #", 0).factory()
+	 */
+	private static ThreadFactory createThreadFactory(String name) throws ReflectiveOperationException
+	{
+		Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+		Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+
+		builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + " #", 0L);
+		return (ThreadFactory)builderType.getMethod("factory").invoke(builder);
+	}
+
+	/**
+	 * Finds the executor factory, after making a thread factory once since virtual threads
+	 * of Java 19 and 20 exist but throw without preview features enabled
+	 */
+	private static Method findFactory()
+	{
+		try
+		{
+			createThreadFactory("probe");
+			return java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		}
+		catch(ReflectiveOperationException | RuntimeException ex)
+		{
+			return null;
+		}
+	}
+}
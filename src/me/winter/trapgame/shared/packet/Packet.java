@@ -1,8 +1,12 @@
 package me.winter.trapgame.shared.packet;
 
+import me.winter.trapgame.util.ByteBufferInputStream;
+import me.winter.trapgame.util.ByteBufferOutputStream;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a small packet of information send from client to server or vice versa
@@ -15,4 +19,28 @@ public abstract class Packet
 	public abstract void readFrom(InputStream stream) throws IOException;
 
 	public abstract void writeTo(OutputStream stream) throws IOException;
+
+	/**
+	 * Reads the packet from the remaining bytes of a buffer
+	 * Packets received often should override this to avoid the stream wrapper
+	 *
+	 * @param buffer buffer positioned at the start of the packet content
+	 * @throws IOException if the content is invalid
+	 */
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		readFrom(new ByteBufferInputStream(buffer));
+	}
+
+	/**
+	 * Writes the packet content at the position of a buffer
+	 * Packets sent often should override this to avoid the stream wrapper
+	 *
+	 * @param buffer buffer with enough space remaining
+	 * @throws IOException if the packet couldn't be written
+	 */
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		writeTo(new ByteBufferOutputStream(buffer));
+	}
 }
@@ -0,0 +1,138 @@
+package me.winter.trapgame.shared.packet;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs many encoded packets (frames) in a single datagram
+ *
+ * A batch datagram starts with the BATCH opcode, followed by each frame
+ * prefixed by its length on two bytes. A batch holding a single frame is
+ * sent as that frame alone, so small traffic doesn't pay the batch header.
+ */
+public class PacketBatch
+{
+	public static final int DEFAULT_MTU = 1400;
+
+	private static final int HEADER_SIZE = 1;
+	private static final int LENGTH_SIZE = 2;
+
+	private ByteBuffer buffer;
+	private int frames;
+
+	/**
+	 * @param mtu maximum size in bytes of the datagrams produced
+	 */
+	public PacketBatch(int mtu)
+	{
+		this.buffer = ByteBuffer.allocate(Math.max(mtu, HEADER_SIZE + LENGTH_SIZE + 1));
+		clear();
+	}
+
+	/**
+	 * Adds a frame to the batch if there's enough space left
+	 * The frame itself isn't modified
+	 *
+	 * @param frame encoded packet
+	 * @return true if the frame was added, false if the batch is too full
+	 */
+	public boolean add(ByteBuffer frame)
+	{
+		int length = frame.remaining();
+
+		if(buffer.remaining() < LENGTH_SIZE + length || length > 0xFFFF)
+			return false;
+
+		buffer.putShort((short)length);
+		buffer.put(frame.duplicate());
+		frames++;
+		return true;
+	}
+
+	/**
+	 * Gives the content of the batch as a datagram
+	 * The datagram is only valid until the batch is cleared
+	 *
+	 * @return a view of the batch ready to be sent
+	 */
+	public ByteBuffer toDatagram()
+	{
+		ByteBuffer datagram = buffer.duplicate();
+		datagram.flip();
+
+		if(frames == 1)
+			datagram.position(HEADER_SIZE + LENGTH_SIZE);
+
+		return datagram;
+	}
+
+	public void clear()
+	{
+		buffer.clear();
+		buffer.put((byte)PacketRegistry.BATCH);
+		frames = 0;
+	}
+
+	public boolean isEmpty()
+	{
+		return frames == 0;
+	}
+
+	public int getFrames()
+	{
+		return frames;
+	}
+
+	/**
+	 * Calls the handler for each frame of a datagram, once if it isn't a batch
+	 * The handler receives the datagram buffer limited to the frame
+	 *
+	 * @param datagram received datagram
+	 * @param handler what to do with each frame
+	 * @throws IOException if the handler fails
+	 */
+	public static void forEachFrame(ByteBuffer datagram, FrameHandler handler) throws IOException
+	{
+		if(!datagram.hasRemaining())
+			return;
+
+		if((datagram.get(datagram.position()) & 0xFF) != PacketRegistry.BATCH)
+		{
+			handler.handle(datagram);
+			return;
+		}
+
+		datagram.get();
+		int limit = datagram.limit();
+
+		try
+		{
+			while(datagram.hasRemaining())
+			{
+				int end = (datagram.getShort() & 0xFFFF) + datagram.position();
+
+				//an empty frame has no opcode, it can't be a packet
+				if(end > limit || end == datagram.position())
+					throw new BufferUnderflowException();
+
+				datagram.limit(end);
+				handler.handle(datagram);
+				datagram.limit(limit);
+				datagram.position(end);
+			}
+		}
+		finally
+		{
+			datagram.limit(limit);
+		}
+	}
+
+	/**
+	 * Handles a single frame of a datagram
+	 */
+	public interface FrameHandler
+	{
+		void handle(ByteBuffer frame) throws IOException;
+	}
+}
@@ -1,6 +1,9 @@
 package me.winter.trapgame.shared.packet;
 
+import me.winter.trapgame.util.BufferUtil;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet sent from client to server
@@ -33,6 +36,18 @@ public class PacketInChat extends Packet
 		new DataOutputStream(stream).writeUTF(message);
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		message = BufferUtil.readUTF(buffer);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		BufferUtil.writeUTF(buffer, message);
+	}
+
 	public String getMessage()
 	{
 		return message;
@@ -2,6 +2,7 @@ package me.winter.trapgame.shared.packet;
 
 import java.awt.*;
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet sent from client to server
@@ -27,7 +28,7 @@ public class PacketInClick extends Packet
 	public void readFrom(InputStream stream) throws IOException
 	{
 		DataInputStream dataStream = new DataInputStream(stream);
-		setLocation(new Point(dataStream.readShort(), dataStream.readShort()));
+		setLocation(new Point(dataStream.readUnsignedShort(), dataStream.readUnsignedShort()));
 	}
 
 	@Override
@@ -38,6 +39,19 @@ public class PacketInClick extends Packet
 		dataStream.writeShort((short)getLocation().y);
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setLocation(new Point(buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF));
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getLocation().x);
+		buffer.putShort((short)getLocation().y);
+	}
+
 	public Point getLocation()
 	{
 		return location;
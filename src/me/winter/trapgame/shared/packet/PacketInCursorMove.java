@@ -1,6 +1,7 @@
 package me.winter.trapgame.shared.packet;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * From client to server
@@ -39,6 +40,20 @@ public class PacketInCursorMove extends Packet
 		dataStream.writeFloat(getCursorY());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setCursorX(buffer.getFloat());
+		setCursorY(buffer.getFloat());
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putFloat(getCursorX());
+		buffer.putFloat(getCursorY());
+	}
+
 	public float getCursorX()
 	{
 		return cursorX;
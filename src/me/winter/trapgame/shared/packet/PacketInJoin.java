@@ -1,6 +1,9 @@
 package me.winter.trapgame.shared.packet;
 
+import me.winter.trapgame.util.BufferUtil;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet sent from client to server
@@ -8,12 +11,14 @@ import java.io.*;
  * The player should give it's username
  * The player may be kicked (by receiving a PacketOutKick)
  * if the game has already started or if he is banned
+ * The player can also name the arena it wants to join, it is placed in any arena otherwise
  *
  * Created by winter on 25/03/16.
  */
 public class PacketInJoin extends Packet
 {
 	private String playerName;
+	private String arena;
 
 	public PacketInJoin()
 	{
@@ -21,8 +26,14 @@ public class PacketInJoin extends Packet
 	}
 
 	public PacketInJoin(String playerName)
+	{
+		this(playerName, null);
+	}
+
+	public PacketInJoin(String playerName, String arena)
 	{
 		this.playerName = playerName;
+		this.arena = arena;
 	}
 
 	@Override
@@ -30,6 +41,7 @@ public class PacketInJoin extends Packet
 	{
 		DataInputStream dataStream = new DataInputStream(stream);
 		setPlayerName(dataStream.readUTF());
+		setArena(dataStream.available() > 0 ? dataStream.readUTF() : null);
 	}
 
 	@Override
@@ -37,6 +49,26 @@ public class PacketInJoin extends Packet
 	{
 		DataOutputStream dataStream = new DataOutputStream(stream);
 		dataStream.writeUTF(getPlayerName());
+
+		if(getArena() != null)
+			dataStream.writeUTF(getArena());
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setPlayerName(BufferUtil.readUTF(buffer));
+		//the arena is optional, older clients don't send it
+		setArena(buffer.hasRemaining() ? BufferUtil.readUTF(buffer) : null);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		BufferUtil.writeUTF(buffer, getPlayerName());
+
+		if(getArena() != null)
+			BufferUtil.writeUTF(buffer, getArena());
 	}
 
 	public String getPlayerName()
@@ -48,4 +80,17 @@ public class PacketInJoin extends Packet
 	{
 		this.playerName = playerName;
 	}
+
+	/**
+	 * @return name of the arena to join, null for any
+	 */
+	public String getArena()
+	{
+		return arena;
+	}
+
+	public void setArena(String arena)
+	{
+		this.arena = arena;
+	}
 }
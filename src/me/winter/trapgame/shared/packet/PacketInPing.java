@@ -3,6 +3,7 @@ package me.winter.trapgame.shared.packet;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * <p>Packet send by client to indicate it wants the infos about the server.</p>
@@ -27,4 +28,16 @@ public class PacketInPing extends Packet
 	{
 
 	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+
+	}
 }
@@ -0,0 +1,87 @@
+package me.winter.trapgame.shared.packet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * From client to server
+ * Asks again for the chunks of a board snapshot that never arrived
+ */
+public class PacketInSnapshotRequest extends Packet
+{
+	private int snapshotId;
+	private int[] chunks;
+
+	public PacketInSnapshotRequest()
+	{
+
+	}
+
+	public PacketInSnapshotRequest(int snapshotId, int[] chunks)
+	{
+		this.snapshotId = snapshotId;
+		this.chunks = chunks;
+	}
+
+	@Override
+	public void readFrom(InputStream stream) throws IOException
+	{
+		DataInputStream dataStream = new DataInputStream(stream);
+		setSnapshotId(dataStream.readInt());
+		chunks = new int[dataStream.readUnsignedShort()];
+
+		for(int i = 0; i < chunks.length; i++)
+			chunks[i] = dataStream.readUnsignedShort();
+	}
+
+	@Override
+	public void writeTo(OutputStream stream) throws IOException
+	{
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		dataStream.writeInt(getSnapshotId());
+		dataStream.writeShort(chunks.length);
+
+		for(int chunk : chunks)
+			dataStream.writeShort(chunk);
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setSnapshotId(buffer.getInt());
+		chunks = new int[buffer.getShort() & 0xFFFF];
+
+		for(int i = 0; i < chunks.length; i++)
+			chunks[i] = buffer.getShort() & 0xFFFF;
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putInt(getSnapshotId());
+		buffer.putShort((short)chunks.length);
+
+		for(int chunk : chunks)
+			buffer.putShort((short)chunk);
+	}
+
+	public int getSnapshotId()
+	{
+		return snapshotId;
+	}
+
+	public void setSnapshotId(int snapshotId)
+	{
+		this.snapshotId = snapshotId;
+	}
+
+	public int[] getChunks()
+	{
+		return chunks;
+	}
+
+	public void setChunks(int[] chunks)
+	{
+		this.chunks = chunks;
+	}
+}
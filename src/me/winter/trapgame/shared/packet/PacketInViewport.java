@@ -0,0 +1,69 @@
+package me.winter.trapgame.shared.packet;
+
+import java.awt.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * From client to server
+ * Tells which rectangle of the board the player is looking at, in cells
+ *
+ * Once sent, places, fills and cursors are only sent to the player
+ * when they are in that rectangle, with a coarse overview of the rest
+ */
+public class PacketInViewport extends Packet
+{
+	private Rectangle viewport;
+
+	public PacketInViewport()
+	{
+
+	}
+
+	public PacketInViewport(Rectangle viewport)
+	{
+		this.viewport = viewport;
+	}
+
+	@Override
+	public void readFrom(InputStream stream) throws IOException
+	{
+		DataInputStream dataStream = new DataInputStream(stream);
+		setViewport(new Rectangle(dataStream.readUnsignedShort(), dataStream.readUnsignedShort(), dataStream.readUnsignedShort(), dataStream.readUnsignedShort()));
+	}
+
+	@Override
+	public void writeTo(OutputStream stream) throws IOException
+	{
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		dataStream.writeShort((short)getViewport().x);
+		dataStream.writeShort((short)getViewport().y);
+		dataStream.writeShort((short)getViewport().width);
+		dataStream.writeShort((short)getViewport().height);
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setViewport(new Rectangle(buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF));
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getViewport().x);
+		buffer.putShort((short)getViewport().y);
+		buffer.putShort((short)getViewport().width);
+		buffer.putShort((short)getViewport().height);
+	}
+
+	public Rectangle getViewport()
+	{
+		return viewport;
+	}
+
+	public void setViewport(Rectangle viewport)
+	{
+		this.viewport = viewport;
+	}
+}
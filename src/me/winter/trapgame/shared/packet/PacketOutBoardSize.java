@@ -1,6 +1,7 @@
 package me.winter.trapgame.shared.packet;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Packet sent from server to client to
@@ -27,8 +28,8 @@ public class PacketOutBoardSize extends Packet
 	public void readFrom(InputStream stream) throws IOException
 	{
 		DataInputStream dataStream = new DataInputStream(stream);
-		setBoardWidth(dataStream.readShort());
-		setBoardHeight(dataStream.readShort());
+		setBoardWidth(dataStream.readUnsignedShort());
+		setBoardHeight(dataStream.readUnsignedShort());
 	}
 
 	@Override
@@ -39,6 +40,20 @@ public class PacketOutBoardSize extends Packet
 		dataStream.writeShort(getBoardHeight());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setBoardWidth(buffer.getShort() & 0xFFFF);
+		setBoardHeight(buffer.getShort() & 0xFFFF);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getBoardWidth());
+		buffer.putShort((short)getBoardHeight());
+	}
+
 	public int getBoardWidth()
 	{
 		return boardWidth;
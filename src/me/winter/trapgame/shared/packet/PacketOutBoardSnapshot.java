@@ -0,0 +1,146 @@
+package me.winter.trapgame.shared.packet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * From server to client
+ * Carries one chunk of an encoded board snapshot
+ *
+ * All the chunks of a snapshot share its id, the client puts them back
+ * together in order of index and asks again for the ones that got lost
+ *
+ * @see me.winter.trapgame.shared.BoardSnapshot
+ */
+public class PacketOutBoardSnapshot extends Packet
+{
+	private int snapshotId;
+	private int chunkIndex, chunkCount;
+	private int boardWidth, boardHeight;
+	private byte[] data;
+
+	public PacketOutBoardSnapshot()
+	{
+
+	}
+
+	public PacketOutBoardSnapshot(int snapshotId, int chunkIndex, int chunkCount, int boardWidth, int boardHeight, byte[] data)
+	{
+		this.snapshotId = snapshotId;
+		this.chunkIndex = chunkIndex;
+		this.chunkCount = chunkCount;
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.data = data;
+	}
+
+	@Override
+	public void readFrom(InputStream stream) throws IOException
+	{
+		DataInputStream dataStream = new DataInputStream(stream);
+		setSnapshotId(dataStream.readInt());
+		setChunkIndex(dataStream.readUnsignedShort());
+		setChunkCount(dataStream.readUnsignedShort());
+		setBoardWidth(dataStream.readUnsignedShort());
+		setBoardHeight(dataStream.readUnsignedShort());
+		data = new byte[dataStream.readUnsignedShort()];
+		dataStream.readFully(data);
+	}
+
+	@Override
+	public void writeTo(OutputStream stream) throws IOException
+	{
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		dataStream.writeInt(getSnapshotId());
+		dataStream.writeShort(getChunkIndex());
+		dataStream.writeShort(getChunkCount());
+		dataStream.writeShort(getBoardWidth());
+		dataStream.writeShort(getBoardHeight());
+		dataStream.writeShort(data.length);
+		dataStream.write(data);
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setSnapshotId(buffer.getInt());
+		setChunkIndex(buffer.getShort() & 0xFFFF);
+		setChunkCount(buffer.getShort() & 0xFFFF);
+		setBoardWidth(buffer.getShort() & 0xFFFF);
+		setBoardHeight(buffer.getShort() & 0xFFFF);
+		data = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(data);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putInt(getSnapshotId());
+		buffer.putShort((short)getChunkIndex());
+		buffer.putShort((short)getChunkCount());
+		buffer.putShort((short)getBoardWidth());
+		buffer.putShort((short)getBoardHeight());
+		buffer.putShort((short)data.length);
+		buffer.put(data);
+	}
+
+	public int getSnapshotId()
+	{
+		return snapshotId;
+	}
+
+	public void setSnapshotId(int snapshotId)
+	{
+		this.snapshotId = snapshotId;
+	}
+
+	public int getChunkIndex()
+	{
+		return chunkIndex;
+	}
+
+	public void setChunkIndex(int chunkIndex)
+	{
+		this.chunkIndex = chunkIndex;
+	}
+
+	public int getChunkCount()
+	{
+		return chunkCount;
+	}
+
+	public void setChunkCount(int chunkCount)
+	{
+		this.chunkCount = chunkCount;
+	}
+
+	public int getBoardWidth()
+	{
+		return boardWidth;
+	}
+
+	public void setBoardWidth(int boardWidth)
+	{
+		this.boardWidth = boardWidth;
+	}
+
+	public int getBoardHeight()
+	{
+		return boardHeight;
+	}
+
+	public void setBoardHeight(int boardHeight)
+	{
+		this.boardHeight = boardHeight;
+	}
+
+	public byte[] getData()
+	{
+		return data;
+	}
+
+	public void setData(byte[] data)
+	{
+		this.data = data;
+	}
+}
@@ -1,6 +1,9 @@
 package me.winter.trapgame.shared.packet;
 
+import me.winter.trapgame.util.BufferUtil;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet meant to be send from server to client
@@ -36,6 +39,18 @@ public class PacketOutChat extends Packet
 		dataStream.writeUTF(getMessage());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setMessage(BufferUtil.readUTF(buffer));
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		BufferUtil.writeUTF(buffer, getMessage());
+	}
+
 	public String getMessage()
 	{
 		return message;
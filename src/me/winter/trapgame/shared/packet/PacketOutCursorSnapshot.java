@@ -0,0 +1,149 @@
+package me.winter.trapgame.shared.packet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * From server to client
+ * Gives the cursors that moved since the last snapshot
+ *
+ * Cursor positions are quantized to 16 bits fixed point, 0 being the left
+ * or top of the board and 65535 the right or bottom
+ */
+public class PacketOutCursorSnapshot extends Packet
+{
+	private static final int SCALE = 0xFFFF;
+
+	private int size;
+	private int[] playerIds;
+	private int[] cursorsX, cursorsY;
+
+	public PacketOutCursorSnapshot()
+	{
+		this(0);
+	}
+
+	/**
+	 * @param capacity maximum amount of cursors the snapshot can contain
+	 */
+	public PacketOutCursorSnapshot(int capacity)
+	{
+		this.size = 0;
+		this.playerIds = new int[capacity];
+		this.cursorsX = new int[capacity];
+		this.cursorsY = new int[capacity];
+	}
+
+	/**
+	 * Adds the cursor of a player to the snapshot
+	 *
+	 * @param playerId id of the player
+	 * @param cursorX position of the cursor relative to the board width, from 0 to 1
+	 * @param cursorY position of the cursor relative to the board height, from 0 to 1
+	 */
+	public void add(int playerId, float cursorX, float cursorY)
+	{
+		if(size == playerIds.length)
+			throw new IllegalStateException("The snapshot is full");
+
+		playerIds[size] = playerId;
+		cursorsX[size] = quantize(cursorX);
+		cursorsY[size] = quantize(cursorY);
+		size++;
+	}
+
+	@Override
+	public void readFrom(InputStream stream) throws IOException
+	{
+		DataInputStream dataStream = new DataInputStream(stream);
+		init(dataStream.readUnsignedShort());
+
+		for(int i = 0; i < size; i++)
+		{
+			playerIds[i] = dataStream.readShort();
+			cursorsX[i] = dataStream.readUnsignedShort();
+			cursorsY[i] = dataStream.readUnsignedShort();
+		}
+	}
+
+	@Override
+	public void writeTo(OutputStream stream) throws IOException
+	{
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		dataStream.writeShort(size);
+
+		for(int i = 0; i < size; i++)
+		{
+			dataStream.writeShort(playerIds[i]);
+			dataStream.writeShort(cursorsX[i]);
+			dataStream.writeShort(cursorsY[i]);
+		}
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		init(buffer.getShort() & 0xFFFF);
+
+		for(int i = 0; i < size; i++)
+		{
+			playerIds[i] = buffer.getShort();
+			cursorsX[i] = buffer.getShort() & 0xFFFF;
+			cursorsY[i] = buffer.getShort() & 0xFFFF;
+		}
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)size);
+
+		for(int i = 0; i < size; i++)
+		{
+			buffer.putShort((short)playerIds[i]);
+			buffer.putShort((short)cursorsX[i]);
+			buffer.putShort((short)cursorsY[i]);
+		}
+	}
+
+	private void init(int size)
+	{
+		if(playerIds.length < size)
+		{
+			playerIds = new int[size];
+			cursorsX = new int[size];
+			cursorsY = new int[size];
+		}
+		this.size = size;
+	}
+
+	public int getSize()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public int getPlayerId(int index)
+	{
+		return playerIds[index];
+	}
+
+	public float getCursorX(int index)
+	{
+		return (float)cursorsX[index] / SCALE;
+	}
+
+	public float getCursorY(int index)
+	{
+		return (float)cursorsY[index] / SCALE;
+	}
+
+	private static int quantize(float position)
+	{
+		return Math.round(Math.max(0f, Math.min(1f, position)) * SCALE);
+	}
+}
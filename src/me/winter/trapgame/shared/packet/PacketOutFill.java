@@ -1,29 +1,32 @@
 package me.winter.trapgame.shared.packet;
 
-import java.awt.*;
+import me.winter.trapgame.shared.FillMask;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * A packet of data sent from server to client
  * Used to inform a client that a board fill has been
- * executed.
+ * executed. Carries the exact cells filled so the client
+ * doesn't fill the zone itself.
  *
  * Created by Alexander Winter on 2016-04-02.
  */
 public class PacketOutFill extends Packet
 {
 	private int playerId;
-	private Point location;
+	private FillMask mask;
 
 	public PacketOutFill()
 	{
 
 	}
 
-	public PacketOutFill(int playerId, Point location)
+	public PacketOutFill(int playerId, FillMask mask)
 	{
 		this.playerId = playerId;
-		this.location = location;
+		this.mask = mask;
 	}
 
 	@Override
@@ -31,7 +34,15 @@ public class PacketOutFill extends Packet
 	{
 		DataInputStream dataStream = new DataInputStream(stream);
 		setPlayerId(dataStream.readShort());
-		setLocation(new Point(dataStream.readShort(), dataStream.readShort()));
+
+		int x = dataStream.readUnsignedShort();
+		int y = dataStream.readUnsignedShort();
+		int width = dataStream.readUnsignedShort();
+		int height = dataStream.readUnsignedShort();
+		byte[] bits = new byte[FillMask.getSize(width, height)];
+		dataStream.readFully(bits);
+
+		setMask(new FillMask(x, y, width, height, bits));
 	}
 
 	@Override
@@ -39,8 +50,42 @@ public class PacketOutFill extends Packet
 	{
 		DataOutputStream dataStream = new DataOutputStream(stream);
 		dataStream.writeShort((short)getPlayerId());
-		dataStream.writeShort((short)getLocation().x);
-		dataStream.writeShort((short)getLocation().y);
+		dataStream.writeShort((short)getMask().getX());
+		dataStream.writeShort((short)getMask().getY());
+		dataStream.writeShort((short)getMask().getWidth());
+		dataStream.writeShort((short)getMask().getHeight());
+		dataStream.write(getMask().getBits());
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setPlayerId(buffer.getShort());
+
+		int x = buffer.getShort() & 0xFFFF;
+		int y = buffer.getShort() & 0xFFFF;
+		int width = buffer.getShort() & 0xFFFF;
+		int height = buffer.getShort() & 0xFFFF;
+		int size = FillMask.getSize(width, height);
+
+		if(size > buffer.remaining())
+			throw new IOException("Fill mask of " + size + " bytes with only " + buffer.remaining() + " remaining");
+
+		byte[] bits = new byte[size];
+		buffer.get(bits);
+
+		setMask(new FillMask(x, y, width, height, bits));
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getPlayerId());
+		buffer.putShort((short)getMask().getX());
+		buffer.putShort((short)getMask().getY());
+		buffer.putShort((short)getMask().getWidth());
+		buffer.putShort((short)getMask().getHeight());
+		buffer.put(getMask().getBits());
 	}
 
 	public int getPlayerId()
@@ -53,13 +98,13 @@ public class PacketOutFill extends Packet
 		this.playerId = playerId;
 	}
 
-	public Point getLocation()
+	public FillMask getMask()
 	{
-		return location;
+		return mask;
 	}
 
-	public void setLocation(Point location)
+	public void setMask(FillMask mask)
 	{
-		this.location = location;
+		this.mask = mask;
 	}
 }
@@ -27,22 +27,17 @@ public class PacketOutJoin extends Packet
 	@Override
 	public void readFrom(InputStream stream) throws IOException
 	{
-		try
-		{
-			ObjectInputStream objectStream = new ObjectInputStream(stream);
-			setPlayer((PlayerInfo)objectStream.readObject());
-		}
-		catch(ClassNotFoundException | ClassCastException | NoClassDefFoundError ex)
-		{
-			throw new IOException("Invalid packet content", ex);
-		}
+		DataInputStream dataStream = new DataInputStream(stream);
+		PlayerCodec.readVersion(dataStream);
+		setPlayer(PlayerCodec.readInfo(dataStream));
 	}
 
 	@Override
 	public void writeTo(OutputStream stream) throws IOException
 	{
-		ObjectOutputStream objectStream = new ObjectOutputStream(stream);
-		objectStream.writeObject(getPlayer());
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		PlayerCodec.writeVersion(dataStream);
+		PlayerCodec.writeInfo(dataStream, getPlayer());
 	}
 
 	public PlayerInfo getPlayer()
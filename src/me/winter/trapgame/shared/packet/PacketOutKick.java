@@ -1,6 +1,9 @@
 package me.winter.trapgame.shared.packet;
 
+import me.winter.trapgame.util.BufferUtil;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet sent from server to client
@@ -37,6 +40,18 @@ public class PacketOutKick extends Packet
 		dataStream.writeUTF(getMessage());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setMessage(BufferUtil.readUTF(buffer));
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		BufferUtil.writeUTF(buffer, getMessage());
+	}
+
 	public String getMessage()
 	{
 		return message;
@@ -1,6 +1,7 @@
 package me.winter.trapgame.shared.packet;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet sent from server to client
@@ -36,6 +37,18 @@ public class PacketOutLeave extends Packet
 		dataStream.writeShort((short)getPlayerId());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setPlayerId(buffer.getShort());
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getPlayerId());
+	}
+
 	public int getPlayerId()
 	{
 		return playerId;
@@ -0,0 +1,133 @@
+package me.winter.trapgame.shared.packet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * From server to client
+ * Carries a coarse overview of the whole board and the score of every owner,
+ * sent to players only receiving the details of their viewport
+ *
+ * @see me.winter.trapgame.shared.BoardOverview
+ */
+public class PacketOutOverview extends Packet
+{
+	private int scale, width, height;
+	private byte[] data;
+	private int[] scores;
+
+	public PacketOutOverview()
+	{
+
+	}
+
+	/**
+	 * @param scale side in cells of each block
+	 * @param width amount of blocks per row
+	 * @param height amount of rows of blocks
+	 * @param data encoded owner of each block
+	 * @param scores amount of cells of each owner by id
+	 */
+	public PacketOutOverview(int scale, int width, int height, byte[] data, int[] scores)
+	{
+		this.scale = scale;
+		this.width = width;
+		this.height = height;
+		this.data = data;
+		this.scores = scores;
+	}
+
+	@Override
+	public void readFrom(InputStream stream) throws IOException
+	{
+		DataInputStream dataStream = new DataInputStream(stream);
+		setScale(dataStream.readUnsignedShort());
+		setWidth(dataStream.readUnsignedShort());
+		setHeight(dataStream.readUnsignedShort());
+		scores = new int[dataStream.readUnsignedShort()];
+		for(int i = 0; i < scores.length; i++)
+			scores[i] = dataStream.readInt();
+		data = new byte[dataStream.readUnsignedShort()];
+		dataStream.readFully(data);
+	}
+
+	@Override
+	public void writeTo(OutputStream stream) throws IOException
+	{
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		dataStream.writeShort(getScale());
+		dataStream.writeShort(getWidth());
+		dataStream.writeShort(getHeight());
+		dataStream.writeShort(scores.length);
+		for(int score : scores)
+			dataStream.writeInt(score);
+		dataStream.writeShort(data.length);
+		dataStream.write(data);
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setScale(buffer.getShort() & 0xFFFF);
+		setWidth(buffer.getShort() & 0xFFFF);
+		setHeight(buffer.getShort() & 0xFFFF);
+		scores = new int[buffer.getShort() & 0xFFFF];
+		for(int i = 0; i < scores.length; i++)
+			scores[i] = buffer.getInt();
+		data = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(data);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getScale());
+		buffer.putShort((short)getWidth());
+		buffer.putShort((short)getHeight());
+		buffer.putShort((short)scores.length);
+		for(int score : scores)
+			buffer.putInt(score);
+		buffer.putShort((short)data.length);
+		buffer.put(data);
+	}
+
+	public int getScale()
+	{
+		return scale;
+	}
+
+	public void setScale(int scale)
+	{
+		this.scale = scale;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public void setWidth(int width)
+	{
+		this.width = width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public void setHeight(int height)
+	{
+		this.height = height;
+	}
+
+	public byte[] getData()
+	{
+		return data;
+	}
+
+	public int[] getScores()
+	{
+		return scores;
+	}
+}
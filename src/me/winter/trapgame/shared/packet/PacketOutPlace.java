@@ -2,6 +2,7 @@ package me.winter.trapgame.shared.packet;
 
 import java.awt.*;
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a packet sent from server to client
@@ -31,7 +32,7 @@ public class PacketOutPlace extends Packet
 	{
 		DataInputStream dataStream = new DataInputStream(stream);
 		setPlayerId(dataStream.readShort());
-		setLocation(new Point(dataStream.readShort(), dataStream.readShort()));
+		setLocation(new Point(dataStream.readUnsignedShort(), dataStream.readUnsignedShort()));
 	}
 
 	@Override
@@ -43,6 +44,21 @@ public class PacketOutPlace extends Packet
 		dataStream.writeShort((short)getLocation().y);
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setPlayerId(buffer.getShort());
+		setLocation(new Point(buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF));
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getPlayerId());
+		buffer.putShort((short)getLocation().x);
+		buffer.putShort((short)getLocation().y);
+	}
+
 	public int getPlayerId()
 	{
 		return playerId;
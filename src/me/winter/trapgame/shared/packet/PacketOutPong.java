@@ -1,10 +1,13 @@
 package me.winter.trapgame.shared.packet;
 
+import me.winter.trapgame.util.BufferUtil;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * <p>Packet send from the server to the client to gives infos about the server.
@@ -52,6 +55,24 @@ public class PacketOutPong extends Packet
 		dataStream.writeShort((short)getSlots());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setVersion(BufferUtil.readUTF(buffer));
+		setName(BufferUtil.readUTF(buffer));
+		setPlayers(buffer.getShort());
+		setSlots(buffer.getShort());
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		BufferUtil.writeUTF(buffer, getVersion());
+		BufferUtil.writeUTF(buffer, getName());
+		buffer.putShort((short)getPlayers());
+		buffer.putShort((short)getSlots());
+	}
+
 	public String getVersion()
 	{
 		return version;
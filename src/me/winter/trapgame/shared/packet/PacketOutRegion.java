@@ -0,0 +1,88 @@
+package me.winter.trapgame.shared.packet;
+
+import java.awt.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * From server to client
+ * Carries the owners of the cells of a rectangle of the board the player just scrolled to
+ *
+ * @see me.winter.trapgame.shared.BoardSnapshot
+ */
+public class PacketOutRegion extends Packet
+{
+	private Rectangle region;
+	private byte[] data;
+
+	public PacketOutRegion()
+	{
+
+	}
+
+	public PacketOutRegion(Rectangle region, byte[] data)
+	{
+		this.region = region;
+		this.data = data;
+	}
+
+	@Override
+	public void readFrom(InputStream stream) throws IOException
+	{
+		DataInputStream dataStream = new DataInputStream(stream);
+		setRegion(new Rectangle(dataStream.readUnsignedShort(), dataStream.readUnsignedShort(), dataStream.readUnsignedShort(), dataStream.readUnsignedShort()));
+		data = new byte[dataStream.readUnsignedShort()];
+		dataStream.readFully(data);
+	}
+
+	@Override
+	public void writeTo(OutputStream stream) throws IOException
+	{
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		dataStream.writeShort((short)getRegion().x);
+		dataStream.writeShort((short)getRegion().y);
+		dataStream.writeShort((short)getRegion().width);
+		dataStream.writeShort((short)getRegion().height);
+		dataStream.writeShort(data.length);
+		dataStream.write(data);
+	}
+
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setRegion(new Rectangle(buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF));
+		data = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(data);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getRegion().x);
+		buffer.putShort((short)getRegion().y);
+		buffer.putShort((short)getRegion().width);
+		buffer.putShort((short)getRegion().height);
+		buffer.putShort((short)data.length);
+		buffer.put(data);
+	}
+
+	public Rectangle getRegion()
+	{
+		return region;
+	}
+
+	public void setRegion(Rectangle region)
+	{
+		this.region = region;
+	}
+
+	public byte[] getData()
+	{
+		return data;
+	}
+
+	public void setData(byte[] data)
+	{
+		this.data = data;
+	}
+}
@@ -1,6 +1,7 @@
 package me.winter.trapgame.shared.packet;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Packet sent from server to client
@@ -39,6 +40,18 @@ public class PacketOutStatus extends Packet
 		dataStream.writeShort((short)getStatus());
 	}
 
+	@Override
+	public void readFrom(ByteBuffer buffer) throws IOException
+	{
+		setStatus(buffer.getShort());
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) throws IOException
+	{
+		buffer.putShort((short)getStatus());
+	}
+
 	public int getStatus()
 	{
 		return status;
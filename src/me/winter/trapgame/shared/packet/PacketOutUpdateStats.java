@@ -38,20 +38,31 @@ public class PacketOutUpdateStats extends Packet
 	@Override
 	public void readFrom(InputStream stream) throws IOException
 	{
-		try
-		{
-			stats = (Map<Integer, PlayerStats>)new ObjectInputStream(stream).readObject();
-		}
-		catch(ClassNotFoundException | ClassCastException | NoClassDefFoundError ex)
+		DataInputStream dataStream = new DataInputStream(stream);
+		PlayerCodec.readVersion(dataStream);
+
+		int count = dataStream.readUnsignedShort();
+		stats = new HashMap<>();
+
+		for(int i = 0; i < count; i++)
 		{
-			throw new IOException("Invalid packet content", ex);
+			int playerId = dataStream.readShort();
+			stats.put(playerId, PlayerCodec.readStats(dataStream));
 		}
 	}
 
 	@Override
 	public void writeTo(OutputStream stream) throws IOException
 	{
-		new ObjectOutputStream(stream).writeObject(stats);
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		PlayerCodec.writeVersion(dataStream);
+		dataStream.writeShort(stats.size());
+
+		for(Map.Entry<Integer, PlayerStats> entry : stats.entrySet())
+		{
+			dataStream.writeShort(entry.getKey());
+			PlayerCodec.writeStats(dataStream, entry.getValue());
+		}
 	}
 
 	public Map<Integer, PlayerStats> getStats()
@@ -3,6 +3,7 @@ package me.winter.trapgame.shared.packet;
 import me.winter.trapgame.shared.PlayerInfo;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -35,28 +36,33 @@ public class PacketOutWelcome extends Packet
 	@Override
 	public void readFrom(InputStream stream) throws IOException
 	{
-		try
-		{
-			ObjectInputStream objectStream = new ObjectInputStream(stream);
-			setPlayerId(objectStream.readShort());
-			setBoardWidth(objectStream.readShort());
-			setBoardHeight(objectStream.readShort());
-			setPlayers((List<PlayerInfo>)objectStream.readObject());
-		}
-		catch(ClassNotFoundException | ClassCastException | NoClassDefFoundError ex)
-		{
-			throw new IOException("Invalid packet content", ex);
-		}
+		DataInputStream dataStream = new DataInputStream(stream);
+		PlayerCodec.readVersion(dataStream);
+		setPlayerId(dataStream.readShort());
+		setBoardWidth(dataStream.readUnsignedShort());
+		setBoardHeight(dataStream.readUnsignedShort());
+
+		int count = dataStream.readUnsignedShort();
+		List<PlayerInfo> players = new ArrayList<>(count);
+
+		for(int i = 0; i < count; i++)
+			players.add(PlayerCodec.readInfo(dataStream));
+
+		setPlayers(players);
 	}
 
 	@Override
 	public void writeTo(OutputStream stream) throws IOException
 	{
-		ObjectOutputStream objectStream = new ObjectOutputStream(stream);
-		objectStream.writeShort((short)getPlayerId());
-		objectStream.writeShort((short)getBoardWidth());
-		objectStream.writeShort((short)getBoardHeight());
-		objectStream.writeObject(getPlayers());
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		PlayerCodec.writeVersion(dataStream);
+		dataStream.writeShort((short)getPlayerId());
+		dataStream.writeShort((short)getBoardWidth());
+		dataStream.writeShort((short)getBoardHeight());
+		dataStream.writeShort(getPlayers().size());
+
+		for(PlayerInfo player : getPlayers())
+			PlayerCodec.writeInfo(dataStream, player);
 	}
 
 	public int getPlayerId()
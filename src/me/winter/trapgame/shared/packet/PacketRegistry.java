@@ -0,0 +1,182 @@
+package me.winter.trapgame.shared.packet;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Maps the one byte opcode starting every datagram to the packet it contains
+ * Each packet type knows how to read and write itself from a ByteBuffer,
+ * the registry only creates the right instance for an opcode
+ *
+ * Opcodes are part of the protocol, they should never be reassigned
+ * 23 was the removed PacketOutCursorMove
+ */
+public class PacketRegistry
+{
+	/**
+	 * Opcode of the keep alive datagram, which has no content
+	 */
+	public static final int KEEP_ALIVE = 0;
+
+	/**
+	 * Opcode of a datagram containing many packets
+	 * @see PacketBatch
+	 */
+	public static final int BATCH = 255;
+
+	public static final int MAX_PACKET_SIZE = 8 * 1024;
+
+	private static final Supplier<?>[] factories = new Supplier<?>[256];
+	private static final Class<?>[] types = new Class<?>[256];
+
+	private static final ClassValue<Integer> opcodes = new ClassValue<Integer>()
+	{
+		@Override
+		protected Integer computeValue(Class<?> type)
+		{
+			for(int opcode = 0; opcode < types.length; opcode++)
+				if(types[opcode] == type)
+					return opcode;
+
+			return -1;
+		}
+	};
+
+	private static final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_PACKET_SIZE));
+
+	static
+	{
+		register(1, PacketInJoin.class, PacketInJoin::new);
+		register(2, PacketInLeave.class, PacketInLeave::new);
+		register(3, PacketInChat.class, PacketInChat::new);
+		register(4, PacketInClick.class, PacketInClick::new);
+		register(5, PacketInCursorMove.class, PacketInCursorMove::new);
+		register(6, PacketInPing.class, PacketInPing::new);
+		register(7, PacketInSnapshotRequest.class, PacketInSnapshotRequest::new);
+		register(8, PacketInViewport.class, PacketInViewport::new);
+
+		register(16, PacketOutWelcome.class, PacketOutWelcome::new);
+		register(17, PacketOutJoin.class, PacketOutJoin::new);
+		register(18, PacketOutLeave.class, PacketOutLeave::new);
+		register(19, PacketOutKick.class, PacketOutKick::new);
+		register(20, PacketOutChat.class, PacketOutChat::new);
+		register(21, PacketOutPlace.class, PacketOutPlace::new);
+		register(22, PacketOutFill.class, PacketOutFill::new);
+		register(24, PacketOutBoardSize.class, PacketOutBoardSize::new);
+		register(25, PacketOutStatus.class, PacketOutStatus::new);
+		register(26, PacketOutSpectator.class, PacketOutSpectator::new);
+		register(27, PacketOutUpdateStats.class, PacketOutUpdateStats::new);
+		register(28, PacketOutPong.class, PacketOutPong::new);
+		register(29, PacketOutCursorSnapshot.class, PacketOutCursorSnapshot::new);
+		register(30, PacketOutBoardSnapshot.class, PacketOutBoardSnapshot::new);
+		register(31, PacketOutRegion.class, PacketOutRegion::new);
+		register(32, PacketOutOverview.class, PacketOutOverview::new);
+	}
+
+	private PacketRegistry() {}
+
+	private static <T extends Packet> void register(int opcode, Class<T> type, Supplier<T> factory)
+	{
+		if(opcode == KEEP_ALIVE || opcode == BATCH || factories[opcode] != null)
+			throw new IllegalStateException("Opcode " + opcode + " is already in use");
+
+		factories[opcode] = factory;
+		types[opcode] = type;
+	}
+
+	/**
+	 * Finds the opcode of a packet
+	 * @param packet packet to identify
+	 * @return its opcode
+	 * @throws IllegalArgumentException if the packet type isn't registered
+	 */
+	public static int getOpcode(Packet packet)
+	{
+		int opcode = opcodes.get(packet.getClass());
+
+		if(opcode < 0)
+			throw new IllegalArgumentException(packet.getClass().getName() + " isn't a registered packet");
+
+		return opcode;
+	}
+
+	/**
+	 * Tells if the datagram in a buffer is a keep alive, without moving its position
+	 * @param buffer datagram content
+	 * @return true if the datagram is a keep alive
+	 */
+	public static boolean isKeepAlive(ByteBuffer buffer)
+	{
+		return buffer.hasRemaining() && buffer.get(buffer.position()) == KEEP_ALIVE;
+	}
+
+	/**
+	 * Reads the packet starting at the position of a buffer
+	 * @param buffer buffer positioned on an opcode
+	 * @return the packet read or null if the opcode is unknown
+	 * @throws IOException if the packet content is invalid
+	 */
+	public static Packet read(ByteBuffer buffer) throws IOException
+	{
+		Supplier<?> factory = factories[buffer.get() & 0xFF];
+
+		if(factory == null)
+			return null;
+
+		//only packet factories are registered
+		Packet packet = (Packet)factory.get();
+		packet.readFrom(buffer);
+		return packet;
+	}
+
+	/**
+	 * Writes the opcode and the content of a packet in a buffer
+	 * @param packet packet to write
+	 * @param buffer buffer with enough space remaining
+	 * @throws IOException if the packet couldn't be written
+	 */
+	public static void write(Packet packet, ByteBuffer buffer) throws IOException
+	{
+		buffer.put((byte)getOpcode(packet));
+		packet.writeTo(buffer);
+	}
+
+	/**
+	 * Encodes a packet in a new buffer of its exact size, ready to be sent
+	 * @param packet packet to encode
+	 * @return a buffer containing the opcode and the content of the packet
+	 * @throws IOException if the packet couldn't be written or is too large
+	 */
+	public static ByteBuffer encode(Packet packet) throws IOException
+	{
+		ByteBuffer buffer = scratch.get();
+		buffer.clear();
+
+		try
+		{
+			write(packet, buffer);
+		}
+		catch(BufferOverflowException ex)
+		{
+			throw new IOException(packet.getClass().getSimpleName() + " is larger than " + MAX_PACKET_SIZE + " bytes", ex);
+		}
+
+		buffer.flip();
+
+		ByteBuffer frame = ByteBuffer.allocate(buffer.remaining());
+		frame.put(buffer);
+		frame.flip();
+		return frame;
+	}
+
+	/**
+	 * Creates a keep alive datagram
+	 * @return a buffer ready to be sent
+	 */
+	public static ByteBuffer keepAlive()
+	{
+		return ByteBuffer.wrap(new byte[]{KEEP_ALIVE});
+	}
+}
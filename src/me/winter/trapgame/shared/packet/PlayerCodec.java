@@ -0,0 +1,90 @@
+package me.winter.trapgame.shared.packet;
+
+import me.winter.trapgame.shared.PlayerInfo;
+import me.winter.trapgame.shared.PlayerStats;
+
+import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Static class encoding players and their stats in packets
+ *
+ * Packets using it start with the codec version so a client can refuse
+ * content it doesn't understand instead of misreading it. Bump VERSION
+ * whenever the layout of an encoding changes.
+ */
+public class PlayerCodec
+{
+	public static final int VERSION = 1;
+
+	private PlayerCodec() {}
+
+	public static void writeVersion(DataOutput output) throws IOException
+	{
+		output.writeByte(VERSION);
+	}
+
+	/**
+	 * Reads the codec version written by writeVersion
+	 * @param input input to read from
+	 * @throws IOException if the content was written by another version of the codec
+	 */
+	public static void readVersion(DataInput input) throws IOException
+	{
+		int version = input.readUnsignedByte();
+
+		if(version != VERSION)
+			throw new IOException("Unsupported codec version " + version + ", expected " + VERSION);
+	}
+
+	/**
+	 * Writes a player as id (2 bytes), name (modified UTF-8), color (RGB on 4 bytes),
+	 * stats and cursor position (2 floats)
+	 *
+	 * @param output output to write to
+	 * @param player player to encode
+	 * @throws IOException if the output failed
+	 */
+	public static void writeInfo(DataOutput output, PlayerInfo player) throws IOException
+	{
+		output.writeShort(player.getPlayerId());
+		output.writeUTF(player.getName());
+		output.writeInt(player.getColor().getRGB());
+		writeStats(output, player.getStats());
+		output.writeFloat(player.getCursorX());
+		output.writeFloat(player.getCursorY());
+	}
+
+	public static PlayerInfo readInfo(DataInput input) throws IOException
+	{
+		int id = input.readShort();
+		String name = input.readUTF();
+		Color color = new Color(input.readInt());
+		PlayerStats stats = readStats(input);
+		float cursorX = input.readFloat();
+		float cursorY = input.readFloat();
+
+		return new PlayerInfo(id, name, color, stats, cursorX, cursorY);
+	}
+
+	/**
+	 * Writes stats as wins, loses and draws on 4 bytes each
+	 *
+	 * @param output output to write to
+	 * @param stats stats to encode
+	 * @throws IOException if the output failed
+	 */
+	public static void writeStats(DataOutput output, PlayerStats stats) throws IOException
+	{
+		output.writeInt(stats.getWins());
+		output.writeInt(stats.getLoses());
+		output.writeInt(stats.getDraws());
+	}
+
+	public static PlayerStats readStats(DataInput input) throws IOException
+	{
+		return new PlayerStats(input.readInt(), input.readInt(), input.readInt());
+	}
+}
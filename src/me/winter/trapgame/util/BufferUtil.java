@@ -0,0 +1,129 @@
+package me.winter.trapgame.util;
+
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+
+/**
+ * Static class with methods to read and write data in ByteBuffers
+ * Strings are encoded the same way DataInputStream and DataOutputStream do
+ * (modified UTF-8 prefixed by its length) so both can be mixed on the wire
+ */
+public class BufferUtil
+{
+	private BufferUtil() {}
+
+	/**
+	 * Reads a string written by writeUTF or DataOutputStream.writeUTF
+	 * @param buffer buffer to read from
+	 * @return the decoded string
+	 * @throws UTFDataFormatException if the bytes aren't a valid modified UTF-8 string
+	 */
+	public static String readUTF(ByteBuffer buffer) throws UTFDataFormatException
+	{
+		int length = buffer.getShort() & 0xFFFF;
+		char[] chars = new char[length];
+		int count = 0;
+		int end = buffer.position() + length;
+
+		while(buffer.position() < end)
+		{
+			int first = buffer.get() & 0xFF;
+
+			if(first < 0x80)
+			{
+				chars[count++] = (char)first;
+				continue;
+			}
+
+			if((first & 0xE0) == 0xC0)
+			{
+				if(buffer.position() >= end)
+					throw new UTFDataFormatException("Malformed input: partial character at end");
+
+				int second = buffer.get() & 0xFF;
+				if((second & 0xC0) != 0x80)
+					throw new UTFDataFormatException("Malformed input around byte " + buffer.position());
+
+				chars[count++] = (char)(((first & 0x1F) << 6) | (second & 0x3F));
+				continue;
+			}
+
+			if((first & 0xF0) == 0xE0)
+			{
+				if(buffer.position() + 1 >= end)
+					throw new UTFDataFormatException("Malformed input: partial character at end");
+
+				int second = buffer.get() & 0xFF;
+				int third = buffer.get() & 0xFF;
+				if((second & 0xC0) != 0x80 || (third & 0xC0) != 0x80)
+					throw new UTFDataFormatException("Malformed input around byte " + buffer.position());
+
+				chars[count++] = (char)(((first & 0x0F) << 12) | ((second & 0x3F) << 6) | (third & 0x3F));
+				continue;
+			}
+
+			throw new UTFDataFormatException("Malformed input around byte " + buffer.position());
+		}
+
+		return new String(chars, 0, count);
+	}
+
+	/**
+	 * Writes a string readable by readUTF or DataInputStream.readUTF
+	 * @param buffer buffer to write to
+	 * @param string string to encode
+	 * @throws UTFDataFormatException if the encoded string is longer than 65535 bytes
+	 */
+	public static void writeUTF(ByteBuffer buffer, String string) throws UTFDataFormatException
+	{
+		int length = getUTFLength(string);
+
+		if(length > 0xFFFF)
+			throw new UTFDataFormatException("Encoded string too long: " + length + " bytes");
+
+		buffer.putShort((short)length);
+
+		for(int i = 0; i < string.length(); i++)
+		{
+			char c = string.charAt(i);
+
+			if(c >= 0x0001 && c <= 0x007F)
+				buffer.put((byte)c);
+			else if(c > 0x07FF)
+			{
+				buffer.put((byte)(0xE0 | ((c >> 12) & 0x0F)));
+				buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte)(0x80 | (c & 0x3F)));
+			}
+			else
+			{
+				buffer.put((byte)(0xC0 | ((c >> 6) & 0x1F)));
+				buffer.put((byte)(0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	/**
+	 * Computes the amount of bytes the string will take once encoded, without its length prefix
+	 * @param string string to measure
+	 * @return encoded length in bytes
+	 */
+	public static int getUTFLength(String string)
+	{
+		int length = 0;
+
+		for(int i = 0; i < string.length(); i++)
+		{
+			char c = string.charAt(i);
+
+			if(c >= 0x0001 && c <= 0x007F)
+				length++;
+			else if(c > 0x07FF)
+				length += 3;
+			else
+				length += 2;
+		}
+
+		return length;
+	}
+}
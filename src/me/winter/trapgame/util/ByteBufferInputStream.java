@@ -0,0 +1,52 @@
+package me.winter.trapgame.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream reading the remaining bytes of a ByteBuffer
+ * Reading through the stream moves the position of the buffer
+ */
+public class ByteBufferInputStream extends InputStream
+{
+	private ByteBuffer buffer;
+
+	public ByteBufferInputStream(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int read()
+	{
+		if(!buffer.hasRemaining())
+			return -1;
+
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length)
+	{
+		if(length == 0)
+			return 0;
+
+		if(!buffer.hasRemaining())
+			return -1;
+
+		length = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, length);
+		return length;
+	}
+
+	@Override
+	public int available()
+	{
+		return buffer.remaining();
+	}
+
+	public ByteBuffer getBuffer()
+	{
+		return buffer;
+	}
+}
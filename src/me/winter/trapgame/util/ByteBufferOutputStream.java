@@ -0,0 +1,35 @@
+package me.winter.trapgame.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An OutputStream writing in a ByteBuffer
+ * Writing more than the remaining space of the buffer throws a BufferOverflowException
+ */
+public class ByteBufferOutputStream extends OutputStream
+{
+	private ByteBuffer buffer;
+
+	public ByteBufferOutputStream(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+	}
+
+	@Override
+	public void write(int value)
+	{
+		buffer.put((byte)value);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length)
+	{
+		buffer.put(bytes, offset, length);
+	}
+
+	public ByteBuffer getBuffer()
+	{
+		return buffer;
+	}
+}